@@ -15,7 +15,11 @@ import nub.primitives.Matrix;
 import nub.primitives.Quaternion;
 import nub.primitives.Vector;
 
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
@@ -130,6 +134,20 @@ public class Graph {
 
   // Custom render
   protected HashMap<Integer, BiConsumer<Graph, Node>> _behaviors;
+  protected HashSet<Integer> _threadSafeBehaviors = new HashSet<Integer>();
+  /**
+   * When {@code true} the {@link #render()} algorithm runs a parallel preparation phase
+   * (see {@link #addBehavior(Node, BiConsumer, boolean)}) before the (serial) submission
+   * of the nodes to the renderer. Default is {@code false}.
+   */
+  public boolean parallel;
+  protected boolean _prepared;
+  // tells _render(Node) the node belongs to a culled subtree, see _render(int, int)
+  protected boolean _hidden;
+  // subtrees smaller than this (or found deeper than _preparationDepth forks) are
+  // prepared sequentially
+  protected static int _preparationThreshold = 1024;
+  protected static int _preparationDepth = 32;
 
   // offscreen
   protected int _upperLeftCornerX, _upperLeftCornerY;
@@ -140,6 +158,12 @@ public class Graph {
   protected Object _bb, _fb;
   protected ArrayList<Node> _subtrees;
   protected boolean _bbNeed;
+  // picking buffer passes (see _renderBackBuffer()): signature of the back-pickable nodes
+  // rendered in the frame and of those found in the buffer, pass areas (x, y, width,
+  // height) and whether or not the buffer is queried directly (see tracks())
+  protected long _bbSignature, _bbPassSignature;
+  protected int[] _bbArea = new int[4], _bbPassArea = new int[4];
+  protected boolean _bbQueried;
   // 1. Eye
   protected Node _eye;
   protected long _lastEqUpdate;
@@ -157,6 +181,27 @@ public class Graph {
   protected float[][] _coefficients;
   protected Vector[] _normal;
   protected float[] _distance;
+  // packed (a, b, c, e) signed distance coefficients of 6 bounds (see _updatePlanes())
+  protected float[] _planes = new float[24];
+  protected long _boundsVersion;
+  protected static final Visibility[] _visibilities = Visibility.values();
+  /**
+   * When {@code true} the {@link #render()} algorithm hierarchical culling remembers, per
+   * node, the bound that last rejected the node subtree and tests it first, and skips the
+   * test altogether if neither the subtree bounds nor the eye changed. Default is
+   * {@code false}.
+   *
+   * @see #planeTestsSaved()
+   * @see #ballVisibility(int, Vector, float)
+   */
+  public boolean coherence;
+  protected ArrayList<Coherence> _coherences = new ArrayList<Coherence>();
+  // per graph index into the node coherence caches (see Node._coherences)
+  protected static int _slots;
+  protected final int _slot = _slots++;
+  protected long _planeTestsSaved;
+  // bulk visibility inputs smaller than this are queried sequentially
+  protected static int _bulkThreshold = 8192;
   // handed
   public static boolean leftHanded;
 
@@ -164,8 +209,52 @@ public class Graph {
   protected int _renderCount;
   protected int _width, _height;
   protected MatrixHandler _matrixHandler, _bbMatrixHandler;
+  /**
+   * When {@code true} the {@link #render()} algorithm binds the (cached) {@link Node#worldMatrix()}
+   * of each node instead of pushing, applying the node {@link Node#matrix()} and popping it from
+   * the matrix stack, so that the traversal cost and stack usage don't depend on the hierarchy
+   * depth. Default is {@code false}.
+   */
+  public boolean worldTraversal;
+  /**
+   * When {@code true} the {@link #render()} algorithm culls the subtrees which bounds lie
+   * outside the eye bounds (see {@link Node#setBoundingBall(Vector, float)} and
+   * {@link Node#setBoundingBox(Vector, Vector)}), skipping the plane tests of the
+   * descendants of fully visible subtrees. Default is {@code true}.
+   */
+  public boolean frustumCulling = true;
+  protected Matrix _traversalModel, _traversalMatrix = new Matrix();
   // _bb : picking buffer
   public boolean picking;
+  /**
+   * When {@code true} the picking buffer pass is skipped if neither the eye nor any
+   * back-pickable node (its world transformation, hints or shapes) changed since the last
+   * pass, and it's clipped to the rectangle bounding the pending rays (see
+   * {@link #tag(String, int, int)}), or skipped when there are none, unless the buffer
+   * was queried directly in the frame. Note that changes the graph can't see, such as an
+   * immediate mode shape animated without modifying its node, then require calling
+   * {@link #refreshPicking()}, and that direct queries (e.g.,
+   * {@link #tracks(Node, int, int)} or {@link #updateTag(String, int, int)}) may read a
+   * stale buffer the first time they're issued. When {@code false} the whole buffer is
+   * rendered each frame having back-pickable nodes. Default is {@code false}.
+   *
+   * @see #refreshPicking()
+   */
+  public boolean pickingCache;
+  /**
+   * When {@code true} ray picking is performed geometrically on the CPU: the ray defined
+   * by {@link #pixelToLine(int, int, Vector, Vector)} is cast (through the
+   * {@link #spatialIndex()}) against the node bounding volumes and triangles (see
+   * {@link Node#setTriangles(float[])}), and the nearest hit node is tagged. Neither the
+   * bullseyes nor the back buffer are used, so that nodes having neither a bounding volume
+   * nor triangles can't be picked. As with rendering, culled nodes (or those having a
+   * culled ancestor) and nodes bypassed in the current frame can't be picked either. Works
+   * also for graphs having no rendering context. Default is {@code false}.
+   *
+   * @see #updateTag(Node, String, int, int)
+   * @see #tag(String, int, int)
+   */
+  public boolean geometricPicking;
   protected Matrix _projection, _view, _projectionView, _projectionViewInverse;
   protected long _cacheProjectionViewInverse;
 
@@ -218,6 +307,8 @@ public class Graph {
   protected class Ray {
     public String _tag;
     public int _pixelX, _pixelY;
+    // the ray was tracked (and removed from _orays)
+    public boolean _tracked;
 
     Ray(String tag, int pixelX, int pixelY) {
       _tag = tag;
@@ -229,10 +320,56 @@ public class Graph {
   public static boolean _seeded;
   protected boolean _seededGraph;
   protected HashMap<String, Node> _tags;
+  protected HashMap<String, Set<Node>> _regions;
+  // region tagging buffers (see _tagRegion())
+  protected Node[] _regionNodes = new Node[0];
+  protected float[] _regionPoints = new float[0];
+  protected byte[] _regionFlags = new byte[0];
   protected ArrayList<Ray> _i1rays, _i2rays, _irays, _orays;
+  // screen-space grid of the _orays (see _binRays())
+  protected static int _rayCellSize = 64;
+  protected boolean _raysBinned;
+  protected int _rayColumns, _rayRows;
+  protected int[] _rayCells = new int[1];
+  protected Ray[] _binnedRays = new Ray[0];
+  // per frame projection cache (see _projection(Node)): screen x, y, depth and pixel to
+  // scene ratio of the nodes, by traversal index, keyed by the bind epoch and world stamp
+  protected long _projectionEpoch;
+  protected long[] _projectionKeys = new long[2];
+  protected float[] _projections = new float[4];
+
+  // keyframe paths adaptive tessellation (see _spline(Node)), cached per interpolator
+  protected float _splineTolerance = 1;
+  protected WeakHashMap<Node, Spline> _splines = new WeakHashMap<Node, Spline>();
+  // recursion limit of the segments subdivision, i.e., at most 2^10 edges per segment
+  protected static final int _splineDepth = 10;
+
+  /**
+   * Internal use. Tessellated keyframe path vertices (packed as {@code x, y, z}) together
+   * with the interpolator path version and the graph view they were computed from.
+   */
+  protected static class Spline {
+    protected float[] _vertices = new float[3 * 64];
+    protected int _size;
+    protected long _version = -1;
+    protected float _tolerance;
+    protected int _width, _height;
+    protected float[] _projectionView = new float[16];
+  }
 
   // 4. Graph
   protected static List<Node> _seeds = new ArrayList<Node>();
+  protected static SpatialIndex _spatialIndex;
+  // flattened pre-order traversal of the tree, see _updateTraversal()
+  protected static Node[] _traversal = new Node[0];
+  protected static int[] _next = new int[0];
+  protected static int _traversalSize;
+  protected static boolean _traversalIsValid;
+  // subtree bounds refit
+  protected static long _refitPass;
+  protected static Node[] _refitTraversal;
+  protected int[] _traversalStack = new int[32];
+  protected int _traversalDepth;
   protected long _lastNonEyeUpdate = 0;
 
   // 5. Interaction methods
@@ -380,6 +517,7 @@ public class Graph {
     setWidth(width);
     setHeight(height);
     _tags = new HashMap<String, Node>();
+    _regions = new HashMap<String, Set<Node>>();
     _i1rays = new ArrayList<Ray>();
     _i2rays = new ArrayList<Ray>();
     _irays = _i1rays;
@@ -747,6 +885,8 @@ public class Graph {
       return false;
     if (_isLeadingNode(node))
       return false;
+    _traversalIsValid = false;
+    node._touch();
     return _leadingNodes().add(node);
   }
 
@@ -759,6 +899,8 @@ public class Graph {
     while (it.hasNext()) {
       if (it.next() == node) {
         it.remove();
+        _traversalIsValid = false;
+        node._touch();
         result = true;
         break;
       }
@@ -766,6 +908,45 @@ public class Graph {
     return result;
   }
 
+  /**
+   * Rebuilds the flattened pre-order traversal of the tree (i.e., the nodes reachable
+   * from the {@link #_leadingNodes()}) only if its topology changed since the last call.
+   * The {@code node} subtree then spans the {@code [node._traversalIndex, _next[node._traversalIndex])}
+   * range of the {@code _traversal} array.
+   *
+   * @see #render(Node)
+   */
+  protected static void _updateTraversal() {
+    if (_traversalIsValid)
+      return;
+    ArrayList<Node> order = new ArrayList<Node>();
+    ArrayDeque<Node> stack = new ArrayDeque<Node>();
+    for (int i = _leadingNodes().size() - 1; i >= 0; i--)
+      stack.push(_leadingNodes().get(i));
+    while (!stack.isEmpty()) {
+      Node node = stack.pop();
+      node._traversalIndex = order.size();
+      order.add(node);
+      for (int i = node.children().size() - 1; i >= 0; i--)
+        stack.push(node.children().get(i));
+    }
+    int size = order.size();
+    Node[] traversal = order.toArray(new Node[size]);
+    int[] next = new int[size];
+    for (int i = size - 1; i >= 0; i--) {
+      next[i] = Math.max(next[i], i + 1);
+      Node reference = traversal[i].reference();
+      if (reference != null) {
+        int parent = reference._traversalIndex;
+        next[parent] = Math.max(next[parent], next[i]);
+      }
+    }
+    _traversal = traversal;
+    _next = next;
+    _traversalSize = size;
+    _traversalIsValid = true;
+  }
+
   /**
    * Same as {@code for(Node node : _leadingNodes()) detach(node)}.
    *
@@ -777,6 +958,24 @@ public class Graph {
     }
   }
 
+  /**
+   * Returns the {@link SpatialIndex} of the nodes that are reachable by the
+   * {@link #render()} algorithm. The index is built the first time this method is called
+   * and, from then on, it's kept in sync with the node changes.
+   * <p>
+   * Prefer the index queries over traversing {@link #nodes()} to find the nodes near a
+   * location, overlapping a region, visible from a graph eye or hit by a ray.
+   */
+  public static SpatialIndex spatialIndex() {
+    if (_spatialIndex == null) {
+      _spatialIndex = new SpatialIndex();
+      for (Node node : _leadingNodes()) {
+        _spatialIndex._touch(node);
+      }
+    }
+    return _spatialIndex;
+  }
+
   /**
    * Returns a list of all the nodes that are reachable by the {@link #render()}
    * algorithm.
@@ -813,6 +1012,84 @@ public class Graph {
       _collect(list, child);
   }
 
+  /**
+   * Same as {@code return worldMatrices(branch(subtree), buffer, null)}.
+   *
+   * @see #worldMatrices(List, FloatBuffer, long[])
+   */
+  public static int worldMatrices(Node subtree, FloatBuffer buffer) {
+    return worldMatrices(branch(subtree), buffer, null);
+  }
+
+  /**
+   * Same as {@code return worldMatrices(branch(subtree), buffer, stamps)}.
+   *
+   * @see #worldMatrices(List, FloatBuffer, long[])
+   */
+  public static int worldMatrices(Node subtree, FloatBuffer buffer, long[] stamps) {
+    return worldMatrices(branch(subtree), buffer, stamps);
+  }
+
+  /**
+   * Same as {@code return worldMatrices(nodes, buffer, null)}.
+   *
+   * @see #worldMatrices(List, FloatBuffer, long[])
+   */
+  public static int worldMatrices(List<Node> nodes, FloatBuffer buffer) {
+    return worldMatrices(nodes, buffer, null);
+  }
+
+  /**
+   * Same as {@code return worldMatrices(nodes, buffer.asFloatBuffer(), stamps)}. Note that
+   * the {@code buffer} byte order is kept.
+   *
+   * @see #worldMatrices(List, FloatBuffer, long[])
+   */
+  public static int worldMatrices(List<Node> nodes, ByteBuffer buffer, long[] stamps) {
+    return worldMatrices(nodes, buffer.asFloatBuffer(), stamps);
+  }
+
+  /**
+   * Writes the {@link Node#worldMatrix()} of each node in {@code nodes} into {@code buffer}
+   * (e.g., a direct buffer to be used as an instancing uniform or vertex attribute). The
+   * {@code i}-th node matrix is written in column-major order at {@code 16 * i} floats from
+   * the current {@code buffer} position, which is left untouched.
+   * <p>
+   * If {@code stamps} is non-null (its length should be at least {@code nodes.size()}),
+   * only the matrices of the nodes whose world transformation changed since the last
+   * export using the same {@code stamps} array are rewritten. Pass a new (zeroed) array
+   * the first time and then reuse it (together with the same {@code buffer}) in
+   * subsequent calls.
+   *
+   * @return the number of written matrices
+   * @see #worldMatrices(Node, FloatBuffer, long[])
+   */
+  public static int worldMatrices(List<Node> nodes, FloatBuffer buffer, long[] stamps) {
+    if (buffer.remaining() < 16 * nodes.size()) {
+      throw new IndexOutOfBoundsException("Buffer too small to hold " + nodes.size() + " matrices");
+    }
+    if (stamps != null && stamps.length < nodes.size()) {
+      throw new IndexOutOfBoundsException("Stamps array too small to hold " + nodes.size() + " stamps");
+    }
+    int offset = buffer.position();
+    int count = 0;
+    int i = 0;
+    for (Node node : nodes) {
+      float[] matrix = node._worldMatrix()._matrix;
+      if (stamps == null || stamps[i] != node._worldStamp) {
+        for (int j = 0; j < 16; j++) {
+          buffer.put(offset + 16 * i + j, matrix[j]);
+        }
+        if (stamps != null) {
+          stamps[i] = node._worldStamp;
+        }
+        count++;
+      }
+      i++;
+    }
+    return count;
+  }
+
   // Matrix and transformations stuff
 
   /**
@@ -953,21 +1230,8 @@ public class Graph {
    * @see #_updateBounds()
    */
   public Visibility ballVisibility(Vector center, float radius) {
-    if (eye().lastUpdate() > _lastEqUpdate || _lastEqUpdate == 0) {
-      _updateBounds();
-      _lastEqUpdate = _frameCount;
-    }
-    boolean allInForAllPlanes = true;
-    for (int i = 0; i < (is3D() ? 6 : 4); ++i) {
-      float d = distanceToBound(i, center);
-      if (d > radius)
-        return Visibility.INVISIBLE;
-      if ((d > 0) || (-d < radius))
-        allInForAllPlanes = false;
-    }
-    if (allInForAllPlanes)
-      return Visibility.VISIBLE;
-    return Visibility.SEMIVISIBLE;
+    _refreshBounds();
+    return _visibilities[_ballTest(center._vector[0], center._vector[1], center._vector[2], radius, 0) & 3];
   }
 
   /**
@@ -975,37 +1239,396 @@ public class Graph {
    * {@link Visibility#SEMIVISIBLE}, depending whether the axis aligned box
    * (defined by corners {@code p1} and {@code p2}) is visible, invisible,
    * or semi-visible, respectively.
+   * <p>
+   * Each bound is tested only against the box positive and negative vertices, and
+   * nothing is allocated.
    *
    * @see #distanceToBound(int, Vector)
    * @see #isPointVisible(Vector)
    * @see #ballVisibility(Vector, float)
+   * @see #orientedBoxVisibility(Node, Vector, Vector)
    * @see #bounds()
    * @see #_updateBounds()
    */
   public Visibility boxVisibility(Vector corner1, Vector corner2) {
+    return _boxVisibility(null,
+        Math.min(corner1._vector[0], corner2._vector[0]), Math.min(corner1._vector[1], corner2._vector[1]), Math.min(corner1._vector[2], corner2._vector[2]),
+        Math.max(corner1._vector[0], corner2._vector[0]), Math.max(corner1._vector[1], corner2._vector[1]), Math.max(corner1._vector[2], corner2._vector[2]));
+  }
+
+  /**
+   * Returns {@link Visibility#VISIBLE}, {@link Visibility#INVISIBLE}, or
+   * {@link Visibility#SEMIVISIBLE}, depending whether the box defined by the
+   * {@code localMin} and {@code localMax} corners, expressed in the {@code node} coordinate
+   * system, is visible, invisible, or semi-visible, respectively.
+   * <p>
+   * The box is tested as an oriented box in world space, i.e., the bounds are
+   * transformed into the {@code node} space instead of transforming the box corners with
+   * {@link Node#worldLocation(Vector)}. Nothing is allocated.
+   *
+   * @see #boxVisibility(Vector, Vector)
+   * @see #ballVisibility(Vector, float)
+   */
+  public Visibility orientedBoxVisibility(Node node, Vector localMin, Vector localMax) {
+    return _boxVisibility(node._worldMatrix()._matrix,
+        Math.min(localMin._vector[0], localMax._vector[0]), Math.min(localMin._vector[1], localMax._vector[1]), Math.min(localMin._vector[2], localMax._vector[2]),
+        Math.max(localMin._vector[0], localMax._vector[0]), Math.max(localMin._vector[1], localMax._vector[1]), Math.max(localMin._vector[2], localMax._vector[2]));
+  }
+
+  /**
+   * Used by {@link #boxVisibility(Vector, Vector)} and
+   * {@link #orientedBoxVisibility(Node, Vector, Vector)}.
+   */
+  protected Visibility _boxVisibility(float[] matrix, float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+    _refreshBounds();
+    return _visibilities[_boxTest(matrix, minX, minY, minZ, maxX, maxY, maxZ, 0) & 3];
+  }
+
+  /**
+   * Refreshes the bounds if the eye changed since they were last updated.
+   */
+  protected void _refreshBounds() {
     if (eye().lastUpdate() > _lastEqUpdate || _lastEqUpdate == 0) {
       _updateBounds();
       _lastEqUpdate = _frameCount;
     }
+  }
+
+  /**
+   * Tests the ball against the (already refreshed) bounds, starting at the {@code first}
+   * one. Returns the {@link Visibility#ordinal()} packed together with the rejecting bound
+   * (bits {@code 2..4}) and the number of bounds tested (bits {@code 5..}), so that the
+   * test may be safely called from several threads.
+   *
+   * @see #_boxTest(float[], float, float, float, float, float, float, int)
+   */
+  protected int _ballTest(float x, float y, float z, float radius, int first) {
+    int count = is3D() ? 6 : 4;
+    boolean allInForAllPlanes = true;
+    for (int k = 0; k < count; ++k) {
+      int i = first + k < count ? first + k : first + k - count;
+      float d = _planes[4 * i] * x + _planes[4 * i + 1] * y + _planes[4 * i + 2] * z + _planes[4 * i + 3];
+      if (d > radius)
+        return Visibility.INVISIBLE.ordinal() | (i << 2) | ((k + 1) << 5);
+      if ((d > 0) || (-d < radius))
+        allInForAllPlanes = false;
+    }
+    return (allInForAllPlanes ? Visibility.VISIBLE : Visibility.SEMIVISIBLE).ordinal() | (count << 5);
+  }
+
+  /**
+   * Tests the {@code [min, max]} box, expressed in the space defined by the column-major
+   * {@code matrix} (world space if {@code matrix} is {@code null}), against each (already
+   * refreshed) bound starting at the {@code first} one, using only the box positive and
+   * negative vertices (the ones farthest along and against the bound normal). The result
+   * is packed as in {@link #_ballTest(float, float, float, float, int)}.
+   */
+  protected int _boxTest(float[] matrix, float minX, float minY, float minZ, float maxX, float maxY, float maxZ, int first) {
+    int count = is3D() ? 6 : 4;
     boolean allInForAllPlanes = true;
-    for (int i = 0; i < (is3D() ? 6 : 4); ++i) {
-      boolean allOut = true;
-      for (int c = 0; c < 8; ++c) {
-        Vector pos = new Vector(((c & 4) != 0) ? corner1._vector[0] : corner2._vector[0], ((c & 2) != 0) ? corner1._vector[1] : corner2._vector[1],
-            ((c & 1) != 0) ? corner1._vector[2] : corner2._vector[2]);
-        if (distanceToBound(i, pos) > 0.0)
+    for (int k = 0; k < count; ++k) {
+      int i = first + k < count ? first + k : first + k - count;
+      // signed distance: a * x + b * y + c * z + e
+      float a = _planes[4 * i];
+      float b = _planes[4 * i + 1];
+      float c = _planes[4 * i + 2];
+      float e = _planes[4 * i + 3];
+      if (matrix != null) {
+        // express the bound in the matrix space: a' = column0 . n, ..., e' = e + translation . n
+        float la = a * matrix[0] + b * matrix[1] + c * matrix[2];
+        float lb = a * matrix[4] + b * matrix[5] + c * matrix[6];
+        float lc = a * matrix[8] + b * matrix[9] + c * matrix[10];
+        e += a * matrix[12] + b * matrix[13] + c * matrix[14];
+        a = la;
+        b = lb;
+        c = lc;
+      }
+      // the negative vertex is the nearest to the inside of the bound
+      float near = e + a * (a > 0 ? minX : maxX) + b * (b > 0 ? minY : maxY) + c * (c > 0 ? minZ : maxZ);
+      // The box lies on the outside side of this plane
+      if (near > 0)
+        return Visibility.INVISIBLE.ordinal() | (i << 2) | ((k + 1) << 5);
+      if (allInForAllPlanes) {
+        // the positive vertex is the nearest to the outside of the bound
+        float far = e + a * (a > 0 ? maxX : minX) + b * (b > 0 ? maxY : minY) + c * (c > 0 ? maxZ : minZ);
+        if (far > 0)
           allInForAllPlanes = false;
-        else
-          allOut = false;
       }
-      // The eight points are on the outside side of this plane
-      if (allOut)
-        return Visibility.INVISIBLE;
     }
-    if (allInForAllPlanes)
-      return Visibility.VISIBLE;
-    // Too conservative, but tangent cases are too expensive to detect
-    return Visibility.SEMIVISIBLE;
+    // Too conservative (when semi-visible), but tangent cases are too expensive to detect
+    return (allInForAllPlanes ? Visibility.VISIBLE : Visibility.SEMIVISIBLE).ordinal() | (count << 5);
+  }
+
+  /**
+   * Same as {@link #ballVisibility(Vector, float)}, but using the temporal coherence
+   * cache of {@code key}, a (small) non-negative integer chosen by the caller to identify
+   * the ball among frames. The bound that rejected the ball the last time is tested first,
+   * and the test is skipped altogether if neither the ball nor the bounds changed since
+   * then.
+   * <p>
+   * Note that keyed queries aren't thread-safe.
+   *
+   * @see #boxVisibility(int, Vector, Vector)
+   * @see #planeTestsSaved()
+   */
+  public Visibility ballVisibility(int key, Vector center, float radius) {
+    return _coherentVisibility(_coherence(key), true, center._vector[0], center._vector[1], center._vector[2], radius, 0, 0);
+  }
+
+  /**
+   * Same as {@link #boxVisibility(Vector, Vector)}, but using the temporal coherence
+   * cache of {@code key}. See {@link #ballVisibility(int, Vector, float)}.
+   *
+   * @see #planeTestsSaved()
+   */
+  public Visibility boxVisibility(int key, Vector corner1, Vector corner2) {
+    return _coherentVisibility(_coherence(key), false,
+        Math.min(corner1._vector[0], corner2._vector[0]), Math.min(corner1._vector[1], corner2._vector[1]), Math.min(corner1._vector[2], corner2._vector[2]),
+        Math.max(corner1._vector[0], corner2._vector[0]), Math.max(corner1._vector[1], corner2._vector[1]), Math.max(corner1._vector[2], corner2._vector[2]));
+  }
+
+  /**
+   * Returns the number of bound (plane) tests saved by the temporal coherence caches (see
+   * {@link #coherence}) since the last {@link #resetPlaneTestsSaved()}. Skipped tests count
+   * the bounds tested the last time; tests starting at the cached bound count the bounds
+   * preceding it (which is an upper bound when several bounds reject the object).
+   *
+   * @see #ballVisibility(int, Vector, float)
+   * @see #boxVisibility(int, Vector, Vector)
+   */
+  public long planeTestsSaved() {
+    return _planeTestsSaved;
+  }
+
+  /**
+   * Resets the {@link #planeTestsSaved()} counter.
+   */
+  public void resetPlaneTestsSaved() {
+    _planeTestsSaved = 0;
+  }
+
+  /**
+   * Returns the temporal coherence cache of {@code key}, growing the keyed caches on demand.
+   */
+  protected Coherence _coherence(int key) {
+    while (_coherences.size() <= key) {
+      _coherences.add(null);
+    }
+    Coherence coherence = _coherences.get(key);
+    if (coherence == null) {
+      coherence = new Coherence();
+      _coherences.set(key, coherence);
+    }
+    return coherence;
+  }
+
+  /**
+   * Used by the coherent visibility queries. Returns the cached visibility if neither the
+   * bounds nor the ({@code ball} or box) input changed since {@code coherence} was last
+   * updated, and tests the bounds starting at the cached rejecting one otherwise.
+   */
+  protected Visibility _coherentVisibility(Coherence coherence, boolean ball, float v0, float v1, float v2, float v3, float v4, float v5) {
+    _refreshBounds();
+    float[] input = coherence._input;
+    if (coherence._boundsVersion == _boundsVersion && coherence._ball == ball && input[0] == v0 && input[1] == v1
+        && input[2] == v2 && input[3] == v3 && input[4] == v4 && input[5] == v5) {
+      _planeTestsSaved += coherence._tests;
+      return _visibilities[coherence._visibility];
+    }
+    int result = ball ? _ballTest(v0, v1, v2, v3, coherence._plane) : _boxTest(null, v0, v1, v2, v3, v4, v5, coherence._plane);
+    coherence._visibility = result & 3;
+    coherence._tests = result >>> 5;
+    if (coherence._visibility == Visibility.INVISIBLE.ordinal()) {
+      coherence._plane = (result >>> 2) & 7;
+      _planeTestsSaved += Math.max(0, coherence._plane + 1 - coherence._tests);
+    }
+    coherence._boundsVersion = _boundsVersion;
+    coherence._ball = ball;
+    input[0] = v0;
+    input[1] = v1;
+    input[2] = v2;
+    input[3] = v3;
+    input[4] = v4;
+    input[5] = v5;
+    return _visibilities[coherence._visibility];
+  }
+
+  /**
+   * Temporal coherence cache of a node or of a caller-supplied key (see {@link #coherence}).
+   */
+  protected static class Coherence {
+    long _boundsVersion = -1;
+    boolean _ball;
+    float[] _input = new float[6];
+    int _plane, _tests, _visibility;
+  }
+
+  /**
+   * Bulk version of {@link #ballVisibility(Vector, float)}. Tests the balls whose centers are
+   * packed in {@code centers} ({@code x, y, z} per ball) and whose radii are given in
+   * {@code radii}, and writes the {@link Visibility#ordinal()} of each ball into
+   * {@code result}, i.e., {@code Visibility.values()[result[i]]} is the visibility of the
+   * {@code i}-th ball. Large inputs are split across the common fork-join pool.
+   *
+   * @see #ballVisibility(float[], float[], BitSet)
+   * @see #ballVisibility(FloatBuffer, FloatBuffer, byte[])
+   */
+  public void ballVisibility(float[] centers, float[] radii, byte[] result) {
+    _bulkVisibility(new BulkVisibility(centers, 0, null, radii, 0, null, radii.length, result, null));
+  }
+
+  /**
+   * Same as {@link #ballVisibility(float[], float[], byte[])}, but reads the balls from
+   * the {@code centers} and {@code radii} buffers (starting at their current positions
+   * which are left untouched).
+   */
+  public void ballVisibility(FloatBuffer centers, FloatBuffer radii, byte[] result) {
+    _bulkVisibility(new BulkVisibility(centers.hasArray() ? centers.array() : null,
+        (centers.hasArray() ? centers.arrayOffset() : 0) + centers.position(), centers.hasArray() ? null : centers,
+        radii.hasArray() ? radii.array() : null,
+        (radii.hasArray() ? radii.arrayOffset() : 0) + radii.position(), radii.hasArray() ? null : radii,
+        radii.remaining(), result, null));
+  }
+
+  /**
+   * Same as {@link #ballVisibility(float[], float[], byte[])}, but sets the {@code i}-th bit
+   * of {@code result} if the {@code i}-th ball isn't {@link Visibility#INVISIBLE} and
+   * clears it otherwise.
+   */
+  public void ballVisibility(float[] centers, float[] radii, BitSet result) {
+    _bulkVisibility(new BulkVisibility(centers, 0, null, radii, 0, null, radii.length, null, result));
+  }
+
+  /**
+   * Bulk version of {@link #isPointVisible(Vector)}. Sets the {@code i}-th bit of
+   * {@code result} if the {@code i}-th point packed in {@code points} ({@code x, y, z} per
+   * point) is visible and clears it otherwise.
+   *
+   * @see #ballVisibility(float[], float[], byte[])
+   */
+  public void isPointVisible(float[] points, BitSet result) {
+    _bulkVisibility(new BulkVisibility(points, 0, null, null, 0, null, points.length / 3, null, result));
+  }
+
+  /**
+   * Same as {@link #isPointVisible(float[], BitSet)}, but reads the points from the
+   * {@code points} buffer (starting at its current position which is left untouched).
+   */
+  public void isPointVisible(FloatBuffer points, BitSet result) {
+    _bulkVisibility(new BulkVisibility(points.hasArray() ? points.array() : null,
+        (points.hasArray() ? points.arrayOffset() : 0) + points.position(), points.hasArray() ? null : points,
+        null, 0, null, points.remaining() / 3, null, result));
+  }
+
+  /**
+   * Used by the bulk visibility queries. Refreshes the bounds (so that they're only read
+   * from the workers) and runs the {@code query}.
+   */
+  protected void _bulkVisibility(BulkVisibility query) {
+    _refreshBounds();
+    query._planes = _planes;
+    if (query._end > _bulkThreshold)
+      ForkJoinPool.commonPool().invoke(query);
+    else
+      query.compute();
+    if (query._bits != null) {
+      query._bits.clear();
+      query._bits.or(BitSet.valueOf(query._words));
+    }
+  }
+
+  /**
+   * A bulk ball (or point, when there are no radii) visibility query over the
+   * {@code [begin, end)} range of its input. Ranges are split at multiples of 64 so that
+   * each task owns the words of the bit set it writes.
+   */
+  protected static class BulkVisibility extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    float[] _planes;
+    float[] _centers, _radii;
+    int _centerOffset, _radiusOffset;
+    FloatBuffer _centerBuffer, _radiusBuffer;
+    byte[] _result;
+    BitSet _bits;
+    long[] _words;
+    int _begin, _end;
+
+    BulkVisibility(float[] centers, int centerOffset, FloatBuffer centerBuffer, float[] radii, int radiusOffset,
+                   FloatBuffer radiusBuffer, int count, byte[] result, BitSet bits) {
+      _centers = centers;
+      _centerOffset = centerOffset;
+      _centerBuffer = centerBuffer;
+      _radii = radii;
+      _radiusOffset = radiusOffset;
+      _radiusBuffer = radiusBuffer;
+      _result = result;
+      _bits = bits;
+      _words = bits == null ? null : new long[(count + 63) >>> 6];
+      _end = count;
+    }
+
+    BulkVisibility(BulkVisibility query, int begin, int end) {
+      _planes = query._planes;
+      _centers = query._centers;
+      _centerOffset = query._centerOffset;
+      _centerBuffer = query._centerBuffer;
+      _radii = query._radii;
+      _radiusOffset = query._radiusOffset;
+      _radiusBuffer = query._radiusBuffer;
+      _result = query._result;
+      _words = query._words;
+      _begin = begin;
+      _end = end;
+    }
+
+    @Override
+    protected void compute() {
+      if (_end - _begin <= _bulkThreshold) {
+        _query();
+      } else {
+        int middle = ((_begin + _end) >>> 1) & ~63;
+        invokeAll(new BulkVisibility(this, _begin, middle), new BulkVisibility(this, middle, _end));
+      }
+    }
+
+    /**
+     * Branch-free kernel: the ball is invisible if its largest signed distance to the
+     * bounds exceeds its radius and visible if it doesn't exceed minus its radius.
+     */
+    protected void _query() {
+      float[] planes = _planes;
+      float a0 = planes[0], b0 = planes[1], c0 = planes[2], e0 = planes[3];
+      float a1 = planes[4], b1 = planes[5], c1 = planes[6], e1 = planes[7];
+      float a2 = planes[8], b2 = planes[9], c2 = planes[10], e2 = planes[11];
+      float a3 = planes[12], b3 = planes[13], c3 = planes[14], e3 = planes[15];
+      float a4 = planes[16], b4 = planes[17], c4 = planes[18], e4 = planes[19];
+      float a5 = planes[20], b5 = planes[21], c5 = planes[22], e5 = planes[23];
+      for (int i = _begin; i < _end; i++) {
+        int j = _centerOffset + 3 * i;
+        float x, y, z;
+        if (_centers != null) {
+          x = _centers[j];
+          y = _centers[j + 1];
+          z = _centers[j + 2];
+        } else {
+          x = _centerBuffer.get(j);
+          y = _centerBuffer.get(j + 1);
+          z = _centerBuffer.get(j + 2);
+        }
+        float radius = _radii != null ? _radii[_radiusOffset + i] : _radiusBuffer != null ? _radiusBuffer.get(_radiusOffset + i) : 0;
+        float distance = a0 * x + b0 * y + c0 * z + e0;
+        distance = Math.max(distance, a1 * x + b1 * y + c1 * z + e1);
+        distance = Math.max(distance, a2 * x + b2 * y + c2 * z + e2);
+        distance = Math.max(distance, a3 * x + b3 * y + c3 * z + e3);
+        distance = Math.max(distance, a4 * x + b4 * y + c4 * z + e4);
+        distance = Math.max(distance, a5 * x + b5 * y + c5 * z + e5);
+        if (_result != null) {
+          _result[i] = (byte) (distance > radius ? 2 : distance > -radius ? 1 : 0);
+        } else if (distance <= radius) {
+          _words[i >>> 6] |= 1L << i;
+        }
+      }
+    }
   }
 
   /**
@@ -1033,6 +1656,37 @@ public class Graph {
       _updateBoundaryEquations3();
     else
       _updateBoundaryEquations2();
+    _updatePlanes();
+    _boundsVersion++;
+  }
+
+  /**
+   * Packs the {@link #bounds()} into {@link #_planes} so that the signed distance of
+   * {@code (x, y, z)} to bound {@code i} is {@code a * x + b * y + c * z + e}, with
+   * {@code (a, b, c, e) = _planes[4 * i] ... _planes[4 * i + 3]}. In 2D the equations are
+   * normalized and the two missing bounds are padded with a bound nothing lies outside of.
+   */
+  protected void _updatePlanes() {
+    for (int i = 0; i < 6; ++i) {
+      int index = 4 * i;
+      if (is3D()) {
+        _planes[index] = _coefficients[i][0];
+        _planes[index + 1] = _coefficients[i][1];
+        _planes[index + 2] = _coefficients[i][2];
+        _planes[index + 3] = -_coefficients[i][3];
+      } else if (i < 4) {
+        float norm = (float) Math.sqrt(_coefficients[i][0] * _coefficients[i][0] + _coefficients[i][1] * _coefficients[i][1]);
+        _planes[index] = _coefficients[i][0] / norm;
+        _planes[index + 1] = _coefficients[i][1] / norm;
+        _planes[index + 2] = 0;
+        _planes[index + 3] = _coefficients[i][2] / norm;
+      } else {
+        _planes[index] = 0;
+        _planes[index + 1] = 0;
+        _planes[index + 2] = 0;
+        _planes[index + 3] = -Float.MAX_VALUE;
+      }
+    }
   }
 
   protected void _initCoefficients() {
@@ -1620,6 +2274,18 @@ public class Graph {
     fit(node, 0);
   }
 
+  /**
+   * Used by the eye fitting animations. Clears the previous eye interpolator, so that its
+   * keyframe nodes stop notifying it of their modifications, and returns a new one for
+   * {@code eye}.
+   */
+  protected Interpolator _interpolator(Node eye) {
+    if (_interpolator != null) {
+      _interpolator.clear();
+    }
+    return new Interpolator(eye);
+  }
+
   /**
    * Smoothly interpolates the eye on a interpolator path so that it goes to {@code node}.
    * The {@code duration} defines the interpolation speed.
@@ -1639,7 +2305,7 @@ public class Graph {
       _eye.set(node);
     } else {
       _eye._interpolator._active = false;
-      _interpolator = new Interpolator(_eye);
+      _interpolator = _interpolator(_eye);
       _interpolator.addKeyFrame(new Node(_eye.reference(), _eye.position(), _eye.orientation(), _eye.magnitude(), false));
       _interpolator.addKeyFrame(node, duration);
       _interpolator._active = true;
@@ -1694,7 +2360,7 @@ public class Graph {
       Node cacheEye = _eye;
       Node tempEye = new Node(_eye.reference(), _eye.position(), _eye.orientation(), _eye.magnitude(), false);
       setEye(tempEye);
-      _interpolator = new Interpolator(tempEye);
+      _interpolator = _interpolator(tempEye);
       _interpolator.addKeyFrame(new Node(tempEye.reference(), tempEye.position(), tempEye.orientation(), tempEye.magnitude(), false));
       _fit(_center, _radius);
       _interpolator.addKeyFrame(new Node(tempEye.reference(), tempEye.position(), tempEye.orientation(), tempEye.magnitude(), false), duration);
@@ -1755,7 +2421,7 @@ public class Graph {
       Node cacheEye = _eye;
       Node tempEye = new Node(_eye.reference(), _eye.position(), _eye.orientation(), _eye.magnitude(), false);
       setEye(tempEye);
-      _interpolator = new Interpolator(tempEye);
+      _interpolator = _interpolator(tempEye);
       _interpolator.addKeyFrame(new Node(tempEye.reference(), tempEye.position(), tempEye.orientation(), tempEye.magnitude(), false));
       fitFOV();
       _interpolator.addKeyFrame(new Node(tempEye.reference(), tempEye.position(), tempEye.orientation(), tempEye.magnitude(), false), duration);
@@ -1819,7 +2485,7 @@ public class Graph {
       Node cacheEye = _eye;
       Node tempEye = new Node(_eye.reference(), _eye.position(), _eye.orientation(), _eye.magnitude(), false);
       setEye(tempEye);
-      _interpolator = new Interpolator(tempEye);
+      _interpolator = _interpolator(tempEye);
       _interpolator.addKeyFrame(new Node(tempEye.reference(), tempEye.position(), tempEye.orientation(), tempEye.magnitude(), false));
       fit(corner1, corner2);
       _interpolator.addKeyFrame(new Node(tempEye.reference(), tempEye.position(), tempEye.orientation(), tempEye.magnitude(), false), duration);
@@ -1878,7 +2544,7 @@ public class Graph {
       Node cacheEye = _eye;
       Node tempEye = new Node(_eye.reference(), _eye.position(), _eye.orientation(), _eye.magnitude(), false);
       setEye(tempEye);
-      _interpolator = new Interpolator(tempEye);
+      _interpolator = _interpolator(tempEye);
       _interpolator.addKeyFrame(new Node(tempEye.reference(), tempEye.position(), tempEye.orientation(), tempEye.magnitude(), false));
       fit(x, y, width, height);
       _interpolator.addKeyFrame(new Node(tempEye.reference(), tempEye.position(), tempEye.orientation(), tempEye.magnitude(), false), duration);
@@ -2116,7 +2782,7 @@ public class Graph {
   /**
    * Tags (with {@code tag} which may be {@code null}) the node in {@link #nodes()} picked with ray-casting at pixel
    * {@code pixelX, pixelY} and returns it (see {@link #node(String)}). May return {@code null} if no node is intersected by
-   * the ray. Not that the {@link #eye()} is never tagged. Same as {@code return updateTag(null, tag, pixelX, pixelY)}.
+   * the ray. Note that the {@link #eye()} is never tagged. Same as {@code return updateTag(null, tag, pixelX, pixelY)}.
    *
    * @see #updateTag(Node, int, int)
    * @see #updateTag(String, int, int, Node[])
@@ -2139,7 +2805,7 @@ public class Graph {
    * Tags (with {@code tag} which may be {@code null}) the node in the {@code subtree} (or the whole tree when
    * {@code subtree} is {@code null}) picked with ray-casting at pixel {@code pixelX, pixelY} and returns it
    * (see {@link #node(String)}). May return {@code null} if no node is intersected by the ray.
-   * Not that the {@link #eye()} is never tagged.
+   * Note that the {@link #eye()} is never tagged.
    *
    * @see #updateTag(String, int, int)
    * @see #updateTag(String, int, int, Node[])
@@ -2156,7 +2822,12 @@ public class Graph {
    */
   public Node updateTag(Node subtree, String tag, int pixelX, int pixelY) {
     removeTag(tag);
-    if (subtree == null) {
+    if (geometricPicking) {
+      Node node = _cast(subtree, pixelX, pixelY);
+      if (node != null) {
+        tag(tag, node);
+      }
+    } else if (subtree == null) {
       for (Node node : _leadingNodes())
         _track(tag, node, pixelX, pixelY);
     } else {
@@ -2165,6 +2836,34 @@ public class Graph {
     return node(tag);
   }
 
+  /**
+   * Used by {@link #updateTag(Node, String, int, int)} when {@link #geometricPicking} is
+   * enabled. Returns the nearest taggable node of the {@code subtree} (or of the whole
+   * tree when {@code subtree} is {@code null}) hit by the ray cast at pixel
+   * {@code pixelX, pixelY}.
+   */
+  protected Node _cast(Node subtree, int pixelX, int pixelY) {
+    Vector origin = new Vector();
+    Vector direction = new Vector();
+    pixelToLine(pixelX, pixelY, origin, direction);
+    return spatialIndex().cast(origin, direction, node -> _geometricPicking(node)
+        && (subtree == null || node == subtree || subtree._isSuccessor(node)));
+  }
+
+  /**
+   * Condition for the node geometric picking. Culled nodes (and those having a culled
+   * ancestor) aren't rendered, just as bypassed ones, so they can't be picked.
+   */
+  protected boolean _geometricPicking(Node node) {
+    if (!node.tagging || isEye(node) || node._bypass == _frameCount)
+      return false;
+    for (Node ancestor = node; ancestor != null; ancestor = ancestor.reference()) {
+      if (ancestor.cull)
+        return false;
+    }
+    return true;
+  }
+
   /**
    * Use internally by {@link #updateTag(String, int, int)}.
    */
@@ -2204,7 +2903,8 @@ public class Graph {
 
   /**
    * Casts a ray at pixel position {@code (pixelX, pixelY)} and returns {@code true} if the ray picks the {@code node} and
-   * {@code false} otherwise. The node is picked according to the {@link Node#bullsEyeSize()}.
+   * {@code false} otherwise. The node is picked according to the {@link Node#bullsEyeSize()}, or
+   * to its bounding volume and triangles when {@link #geometricPicking} is enabled.
    *
    * @see #node(String)
    * @see #removeTag(String)
@@ -2215,13 +2915,23 @@ public class Graph {
    * @see Node#setBullsEyeSize(float)
    */
   public boolean tracks(Node node, int pixelX, int pixelY) {
+    if (geometricPicking) {
+      if (!_geometricPicking(node))
+        return false;
+      Vector origin = new Vector();
+      Vector direction = new Vector();
+      pixelToLine(pixelX, pixelY, origin, direction);
+      return node._cast(origin, direction) >= 0;
+    }
     boolean result = false;
     if (_backPicking(node)) {
+      _bbQueried = true;
       result = _tracks(node, pixelX, pixelY);
     }
     if (!result) {
-      if(_frontPicking(node)) {
-        result = _tracks(node, pixelX, pixelY, screenLocation(node.worldPosition()));
+      if(_frontPicking(node) && node.tagging && !isEye(node)) {
+        int offset = _projection(node);
+        result = offset >= 0 && _tracks(node, pixelX, pixelY, _projections[offset], _projections[offset + 1], _bullsEyeThreshold(node));
       }
     }
     return result;
@@ -2250,12 +2960,28 @@ public class Graph {
       return false;
     if (!node.tagging)
       return false;
-    float threshold = node.bullsEyeSize() < 1 ?
-        100 * node.bullsEyeSize() * node.magnitude() * pixelToSceneRatio(node.worldPosition()) :
+    return _tracks(node, pixelX, pixelY, projection._vector[0], projection._vector[1], _bullsEyeThreshold(node));
+  }
+
+  /**
+   * Returns the half size (in pixels) of the {@code node} bullseye.
+   *
+   * @see Node#bullsEyeSize()
+   */
+  protected float _bullsEyeThreshold(Node node) {
+    return node.bullsEyeSize() < 1 ?
+        100 * node.bullsEyeSize() * node.magnitude() * _pixelToSceneRatio(node) :
         node.bullsEyeSize() / 2;
+  }
+
+  /**
+   * Cached version of {@link #_tracks(Node, int, int, Vector)} which requires the node
+   * projection {@code (x, y)} and the {@link #_bullsEyeThreshold(Node)}.
+   */
+  protected boolean _tracks(Node node, int pixelX, int pixelY, float x, float y, float threshold) {
     return node._bullsEyeShape == Node.BullsEyeShape.SQUARE ?
-        ((Math.abs(pixelX - projection._vector[0]) < threshold) && (Math.abs(pixelY - projection._vector[1]) < threshold)) :
-        (float) Math.sqrt((float) Math.pow((projection._vector[0] - pixelX), 2.0) + (float) Math.pow((projection._vector[1] - pixelY), 2.0)) < threshold;
+        ((Math.abs(pixelX - x) < threshold) && (Math.abs(pixelY - y) < threshold)) :
+        (float) Math.sqrt((float) Math.pow((x - pixelX), 2.0) + (float) Math.pow((y - pixelY), 2.0)) < threshold;
   }
 
   /**
@@ -2273,7 +2999,7 @@ public class Graph {
    * should be always be used in conjunction with {@link #render()}.
    * <p>
    * The tagged node (see {@link #node(String)}) would be available after the next call to
-   * {@link #render()}. It may be {@code null} if no node is intersected by the ray. Not that
+   * {@link #render()}. It may be {@code null} if no node is intersected by the ray. Note that
    * the {@link #eye()} is never tagged.
    * <p>
    * This method is optimal since it tags the nodes at traversal time. Prefer this method over
@@ -2294,44 +3020,236 @@ public class Graph {
     _irays.add(new Ray(tag, pixelX, pixelY));
   }
 
-  // Off-screen
-
   /**
-   * Returns whether or not the scene has focus or not under the given pixel.
+   * Same as {@code return tagRegion(null, x, y, width, height)}.
+   *
+   * @see #tagRegion(String, int, int, int, int)
    */
-  public boolean hasFocus(int pixelX, int pixelY) {
-    return _lastDisplayed + 1 >= _frameCount
-        && _upperLeftCornerX <= pixelX && pixelX < _upperLeftCornerX + width()
-        && _upperLeftCornerY <= pixelY && pixelY < _upperLeftCornerY + height();
+  public Set<Node> tagRegion(int x, int y, int width, int height) {
+    return tagRegion(null, x, y, width, height);
   }
 
   /**
-   * Internal use by {@link #hasFocus(int, int)} and the display of offscreen scenes.
+   * Tags (with {@code tag} which may be {@code null}) the set of taggable nodes whose
+   * projected origin lies within the screen rectangle having its upper left corner at
+   * {@code (x, y)} and the given {@code width} and {@code height}, and returns it (see
+   * {@link #region(String)}). Nodes lying behind the eye or beyond its far plane are
+   * never tagged. Note that the {@link #eye()} is never tagged.
+   * <p>
+   * All nodes are tested in a single pass over their packed world positions, which is
+   * split across the common fork-join pool for large trees.
+   *
+   * @see #tagRegion(String, float[])
+   * @see #region(String)
+   * @see #removeTag(String)
+   * @see Node#tagging
    */
-  protected void _setUpperLeftCorner(int x, int y) {
-    _upperLeftCornerX = x;
-    _upperLeftCornerY = y;
+  public Set<Node> tagRegion(String tag, int x, int y, int width, int height) {
+    return _tagRegion(tag, new RegionQuery(Math.min(x, x + width), Math.min(y, y + height),
+        Math.max(x, x + width), Math.max(y, y + height), null));
   }
 
   /**
-   * Returns {@code true} if this scene is off-screen and {@code false} otherwise.
+   * Same as {@code return tagRegion(null, polygon)}.
+   *
+   * @see #tagRegion(String, float[])
    */
-  public boolean isOffscreen() {
-    return _offscreen;
+  public Set<Node> tagRegion(float[] polygon) {
+    return tagRegion(null, polygon);
   }
 
   /**
-   * Returns the main renderer context.
+   * Lasso version of {@link #tagRegion(String, int, int, int, int)}. Tags the set of
+   * taggable nodes whose projected origin lies within the screen {@code polygon}, given
+   * as packed {@code x, y} pixel coordinates of its vertices (in order), using the
+   * even-odd rule. The polygon is implicitly closed.
+   *
+   * @see #tagRegion(String, int, int, int, int)
+   * @see #region(String)
    */
-  public Object context() {
-    return _fb;
+  public Set<Node> tagRegion(String tag, float[] polygon) {
+    if (polygon.length < 6 || polygon.length % 2 != 0) {
+      System.out.println("Warning: polygon should hold at least three x, y vertices. Nothing done!");
+      return region(tag);
+    }
+    float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY;
+    float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+    for (int i = 0; i < polygon.length; i += 2) {
+      minX = Math.min(minX, polygon[i]);
+      maxX = Math.max(maxX, polygon[i]);
+      minY = Math.min(minY, polygon[i + 1]);
+      maxY = Math.max(maxY, polygon[i + 1]);
+    }
+    return _tagRegion(tag, new RegionQuery(minX, minY, maxX, maxY, polygon));
   }
 
   /**
-   * Returns the back buffer, used for
-   * <a href="http://schabby.de/picking-opengl-ray-tracing/">'ray-picking'</a>. Maybe {@code null}
+   * Returns the set of nodes tagged with {@code tag} by the last region tagging, or an
+   * empty set if there's none.
+   *
+   * @see #tagRegion(String, int, int, int, int)
+   * @see #tagRegion(String, float[])
    */
-  protected Object _backBuffer() {
+  public Set<Node> region(String tag) {
+    Set<Node> region = _regions.get(tag);
+    return region == null ? new HashSet<Node>() : region;
+  }
+
+  /**
+   * Same as {@code return region(null)}.
+   *
+   * @see #region(String)
+   */
+  public Set<Node> region() {
+    return region(null);
+  }
+
+  /**
+   * Used by the region tagging methods. Packs the world positions of the taggable nodes
+   * (serially, since it may refresh their world transformation caches), runs the
+   * {@code query} over them and collects the result.
+   */
+  protected Set<Node> _tagRegion(String tag, RegionQuery query) {
+    _updateTraversal();
+    if (_regionNodes.length < _traversalSize) {
+      _regionNodes = new Node[_traversalSize];
+      _regionPoints = new float[3 * _traversalSize];
+      _regionFlags = new byte[_traversalSize];
+    }
+    int count = 0;
+    for (int index = 0; index < _traversalSize; index++) {
+      Node node = _traversal[index];
+      if (node.tagging && !isEye(node)) {
+        node._updateWorldCache();
+        System.arraycopy(node._worldPosition._vector, 0, _regionPoints, 3 * count, 3);
+        _regionNodes[count++] = node;
+      }
+    }
+    query._projectionView = projectionView()._matrix;
+    query._width = width();
+    query._height = height();
+    query._points = _regionPoints;
+    query._flags = _regionFlags;
+    query._end = count;
+    if (count > _bulkThreshold)
+      ForkJoinPool.commonPool().invoke(query);
+    else
+      query.compute();
+    Set<Node> region = new HashSet<Node>();
+    for (int i = 0; i < count; i++) {
+      if (_regionFlags[i] != 0) {
+        region.add(_regionNodes[i]);
+      }
+      _regionNodes[i] = null;
+    }
+    _regions.put(tag, region);
+    return region;
+  }
+
+  /**
+   * A region tagging query over the {@code [begin, end)} range of the packed points. Each
+   * point is projected onto the screen and tested against the region bounding rectangle
+   * and then, if any, against the region polygon.
+   */
+  protected static class RegionQuery extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    float[] _projectionView;
+    int _width, _height;
+    float[] _points;
+    byte[] _flags;
+    float _minX, _minY, _maxX, _maxY;
+    float[] _polygon;
+    int _begin, _end;
+
+    RegionQuery(float minX, float minY, float maxX, float maxY, float[] polygon) {
+      _minX = minX;
+      _minY = minY;
+      _maxX = maxX;
+      _maxY = maxY;
+      _polygon = polygon;
+    }
+
+    RegionQuery(RegionQuery query, int begin, int end) {
+      this(query._minX, query._minY, query._maxX, query._maxY, query._polygon);
+      _projectionView = query._projectionView;
+      _width = query._width;
+      _height = query._height;
+      _points = query._points;
+      _flags = query._flags;
+      _begin = begin;
+      _end = end;
+    }
+
+    @Override
+    protected void compute() {
+      if (_end - _begin <= _bulkThreshold) {
+        float[] pixel = new float[3];
+        for (int i = _begin; i < _end; i++) {
+          boolean inside = _screenLocation(_projectionView, _width, _height, _points, 3 * i, pixel, 0)
+              && pixel[2] >= 0 && pixel[2] <= 1
+              && pixel[0] >= _minX && pixel[0] <= _maxX && pixel[1] >= _minY && pixel[1] <= _maxY
+              && (_polygon == null || _contains(_polygon, pixel[0], pixel[1]));
+          _flags[i] = (byte) (inside ? 1 : 0);
+        }
+      } else {
+        int middle = (_begin + _end) >>> 1;
+        invokeAll(new RegionQuery(this, _begin, middle), new RegionQuery(this, middle, _end));
+      }
+    }
+  }
+
+  /**
+   * Returns whether or not {@code (x, y)} lies within the {@code polygon} (packed {@code x, y}
+   * vertices) according to the even-odd rule.
+   */
+  protected static boolean _contains(float[] polygon, float x, float y) {
+    boolean inside = false;
+    for (int i = 0, j = polygon.length - 2; i < polygon.length; j = i, i += 2) {
+      float xi = polygon[i], yi = polygon[i + 1], xj = polygon[j], yj = polygon[j + 1];
+      if ((yi > y) != (yj > y) && x < (xj - xi) * (y - yi) / (yj - yi) + xi)
+        inside = !inside;
+    }
+    return inside;
+  }
+
+  // Off-screen
+
+  /**
+   * Returns whether or not the scene has focus or not under the given pixel.
+   */
+  public boolean hasFocus(int pixelX, int pixelY) {
+    return _lastDisplayed + 1 >= _frameCount
+        && _upperLeftCornerX <= pixelX && pixelX < _upperLeftCornerX + width()
+        && _upperLeftCornerY <= pixelY && pixelY < _upperLeftCornerY + height();
+  }
+
+  /**
+   * Internal use by {@link #hasFocus(int, int)} and the display of offscreen scenes.
+   */
+  protected void _setUpperLeftCorner(int x, int y) {
+    _upperLeftCornerX = x;
+    _upperLeftCornerY = y;
+  }
+
+  /**
+   * Returns {@code true} if this scene is off-screen and {@code false} otherwise.
+   */
+  public boolean isOffscreen() {
+    return _offscreen;
+  }
+
+  /**
+   * Returns the main renderer context.
+   */
+  public Object context() {
+    return _fb;
+  }
+
+  /**
+   * Returns the back buffer, used for
+   * <a href="http://schabby.de/picking-opengl-ray-tracing/">'ray-picking'</a>. Maybe {@code null}
+   */
+  protected Object _backBuffer() {
     return _bb;
   }
 
@@ -2356,6 +3274,7 @@ public class Graph {
     // safer to always free subtrees cache
     _subtrees.clear();
     _bbNeed = false;
+    _bbSignature = 1;
     _cacheHUDs = new HashSet<Node>(_huds);
     if (!isOffscreen()) {
       openContext();
@@ -2381,6 +3300,13 @@ public class Graph {
     _orays.clear();
     _orays = _irays;
     _irays = _irays == _i1rays ? _i2rays : _i1rays;
+    _raysBinned = false;
+    if (geometricPicking) {
+      for (Ray ray : _orays) {
+        updateTag(ray._tag, ray._pixelX, ray._pixelY);
+      }
+      _orays.clear();
+    }
     _renderBackBuffer();
   }
 
@@ -2448,6 +3374,7 @@ public class Graph {
             : Matrix.orthographic(width() * eye().worldMagnitude(), (leftHanded ? -height() : height()) * eye().worldMagnitude(), zNear(), zFar());
     _view = eye().view();
     _projectionView = Matrix.multiply(_projection, _view);
+    _projectionEpoch++;
     _matrixHandler.bind(_projection, _view);
   }
 
@@ -2555,23 +3482,162 @@ public class Graph {
       throw new RuntimeException("Error: context should be open before render offscreen scenes!");
     }
     _lastRendered = _frameCount;
-    if (subtree == null) {
-      for (Node node : _leadingNodes()) {
-        _render(node);
+    // a behavior may render (e.g., another subtree) while this render is on: only the
+    // preparation of this render counts for it, and the outer one is restored on exit
+    boolean prepared = _prepared;
+    _prepared = false;
+    if (worldTraversal) {
+      // nodes world matrices are bound relative to the model matrix found at the beginning
+      _matrixHandler.pushMatrix();
+      _traversalModel = _matrixHandler.model().copy();
+    }
+    _updateTraversal();
+    boolean culling = frustumCulling && Node._boundedNodes > 0;
+    if (subtree == null || subtree.isAttached()) {
+      int begin = subtree == null ? 0 : subtree._traversalIndex;
+      int end = subtree == null ? _traversalSize : _next[subtree._traversalIndex];
+      if (parallel) {
+        _prepare(begin, end);
+      } else if (culling) {
+        // culled subtrees should keep on animating, and bounds should be refit afterwards
+        _animate(begin, end);
       }
+    }
+    if (culling) {
+      _refitBounds();
+    }
+    if (subtree == null) {
+      _render(0, _traversalSize);
     } else if (subtree.isAttached()) {
       if (picking && _bb != null) {
         _subtrees.add(subtree);
       }
-      if (subtree.reference() != null) {
+      if (subtree.reference() != null && !worldTraversal) {
         _matrixHandler.pushMatrix();
         _matrixHandler.applyWorldTransformation(subtree.reference());
       }
-      _render(subtree);
-      if (subtree.reference() != null) {
+      _render(subtree._traversalIndex, _next[subtree._traversalIndex]);
+      if (subtree.reference() != null && !worldTraversal) {
         _matrixHandler.popMatrix();
       }
     }
+    if (worldTraversal) {
+      _matrixHandler.popMatrix();
+    }
+    _prepared = prepared;
+  }
+
+  /**
+   * Used by the {@link #render(Node)} algorithm when the graph is {@link #parallel}.
+   * Serially executes the node timing stuff (interpolators and inertia) and refreshes the
+   * world transform caches of the nodes found in the {@code [begin, end)} range of the
+   * {@link #_updateTraversal()} pre-order, and then concurrently computes the nodes world
+   * matrices and runs the thread-safe behaviors (see
+   * {@link #addBehavior(Node, BiConsumer, boolean)}) over independent subtrees, using the
+   * common fork-join pool.
+   * <p>
+   * Note that all the shared node state (the world caches, the {@code Node._generation}
+   * counter and the {@link Node#lastUpdate()} memos) is written before forking, so that
+   * the workers only write the world matrix of the node they prepare.
+   */
+  protected void _prepare(int begin, int end) {
+    _animate(begin, end);
+    // the pre-order guarantees each reference cache is refreshed before its children ones
+    for (int index = begin; index < end; index++) {
+      _traversal[index]._updateWorldCache();
+      _traversal[index].lastUpdate();
+    }
+    // the eye and the bounds are refreshed here so that they're only read from the workers
+    eye()._worldMatrix();
+    if (eye().lastUpdate() > _lastEqUpdate || _lastEqUpdate == 0) {
+      _updateBounds();
+      _lastEqUpdate = _frameCount;
+    }
+    ForkJoinPool.commonPool().invoke(new Preparation(_traversal, _next, begin, end, 0));
+    _prepared = true;
+  }
+
+  /**
+   * Executes the node timing stuff (interpolators and inertia) of all the nodes found in the
+   * {@code [begin, end)} range of the {@link #_updateTraversal()} pre-order, including those
+   * which won't be rendered (e.g., because they're out of the view frustum), so that they
+   * may move back into view. Used by the {@link #render(Node)} algorithm.
+   */
+  protected void _animate(int begin, int end) {
+    for (int index = begin; index < end; index++) {
+      _traversal[index]._execute(this);
+    }
+  }
+
+  /**
+   * Refits the world bounds of the subtrees of the {@link #_updateTraversal()} pre-order
+   * from the leaves up. Only the bounds of the subtrees having a node which moved (or which
+   * bounding volume changed) are actually recomputed.
+   *
+   * @see Node#setBoundingBall(Vector, float)
+   * @see Node#setBoundingBox(Vector, Vector)
+   */
+  protected static void _refitBounds() {
+    long pass = ++_refitPass;
+    boolean force = _refitTraversal != _traversal;
+    _refitTraversal = _traversal;
+    for (int index = _traversalSize - 1; index >= 0; index--) {
+      _traversal[index]._refitSubtreeBounds(pass, force);
+    }
+  }
+
+  /**
+   * Prepares a forest of sibling subtrees (whose ancestors are already prepared) found in
+   * the {@code [begin, end)} traversal range. Each subtree root is prepared first and then
+   * the subtree children forests are forked. Forking stops after {@code _preparationDepth}
+   * levels, so that deep hierarchies (e.g., long chains) are prepared iteratively.
+   */
+  protected class Preparation extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    Node[] _traversal;
+    int[] _next;
+    int _begin, _end, _depth;
+
+    Preparation(Node[] traversal, int[] next, int begin, int end, int depth) {
+      _traversal = traversal;
+      _next = next;
+      _begin = begin;
+      _end = end;
+      _depth = depth;
+    }
+
+    @Override
+    protected void compute() {
+      if (_end - _begin <= _preparationThreshold || _depth >= _preparationDepth) {
+        int index = _begin;
+        while (index < _end) {
+          index = _prepare(_traversal[index]) ? index + 1 : _next[index];
+        }
+      } else {
+        List<Preparation> tasks = new ArrayList<Preparation>();
+        for (int root = _begin; root < _end; root = _next[root]) {
+          if (_prepare(_traversal[root]) && root + 1 < _next[root]) {
+            tasks.add(new Preparation(_traversal, _next, root + 1, _next[root], _depth + 1));
+          }
+        }
+        invokeAll(tasks);
+      }
+    }
+  }
+
+  /**
+   * Used by {@link Preparation}. Updates the {@code node} world transformation and runs its
+   * thread-safe behavior. Returns {@code false} if the node subtree should be skipped.
+   */
+  protected boolean _prepare(Node node) {
+    node._worldMatrix();
+    if (_threadSafeBehaviors.contains(node.id())) {
+      BiConsumer<Graph, Node> behavior = _behaviors.get(node.id());
+      if (behavior != null) {
+        behavior.accept(this, node);
+      }
+    }
+    return !node.cull;
   }
 
   /**
@@ -2608,7 +3674,31 @@ public class Graph {
    * @see Node#cull
    */
   public void addBehavior(Node node, BiConsumer<Graph, Node> behavior) {
-    _behaviors.put(node.id(), behavior);
+    addBehavior(node, behavior, false);
+  }
+
+  /**
+   * Same as {@link #addBehavior(Node, BiConsumer)}, but when {@code threadSafe} is {@code true}
+   * and the graph is {@link #parallel} the behavior is executed from the parallel preparation
+   * phase, before any node is submitted to the renderer. Thread-safe behaviors should only
+   * query world-space data (e.g., {@link Node#worldPosition()} together with
+   * {@link #ballVisibility(Vector, float)}) and set the node {@link Node#cull} or
+   * {@link Node#bypass()} state. They must not modify any node transformation nor the
+   * graph topology, nor issue matrix operations.
+   *
+   * @see #parallel
+   * @see #addBehavior(Node, BiConsumer)
+   */
+  public void addBehavior(Node node, BiConsumer<Graph, Node> behavior, boolean threadSafe) {
+    // the node id can't be recycled while the graph holds a behavior keyed by it
+    if (_behaviors.put(node.id(), behavior) == null) {
+      node._idReference._behaviors++;
+    }
+    if (threadSafe) {
+      _threadSafeBehaviors.add(node.id());
+    } else {
+      _threadSafeBehaviors.remove(node.id());
+    }
   }
 
   /**
@@ -2635,16 +3725,113 @@ public class Graph {
    * @see Node#cull
    */
   public void resetBehavior(Node node) {
-    _behaviors.remove(node.id());
+    if (_behaviors.remove(node.id()) != null) {
+      node._idReference._behaviors--;
+    }
+    _threadSafeBehaviors.remove(node.id());
+  }
+
+  /**
+   * Used by the {@link #render(Node)} algorithm. Iteratively renders the nodes found
+   * in the {@code [begin, end)} range of the {@link #_updateTraversal()} pre-order.
+   */
+  protected void _render(int begin, int end) {
+    Node[] traversal = _traversal;
+    int[] next = _next;
+    // _traversalStack holds the end of the subtrees which matrices have been pushed
+    // (from base on, since rendering may be reentrant, e.g., from a node behavior)
+    int base = _traversalDepth;
+    boolean culling = frustumCulling && Node._boundedNodes > 0;
+    // nodes before visibleEnd belong to a fully visible subtree, and those before
+    // hiddenEnd to an invisible one, which are traversed (but not drawn) only to
+    // execute their behaviors
+    int visibleEnd = begin;
+    int hiddenEnd = begin;
+    int index = begin;
+    while (index < end) {
+      if (!worldTraversal) {
+        while (_traversalDepth > base && _traversalStack[_traversalDepth - 1] <= index) {
+          _matrixHandler.popMatrix();
+          _traversalDepth--;
+        }
+      }
+      if (culling && index >= visibleEnd && index >= hiddenEnd) {
+        Visibility visibility = _subtreeVisibility(traversal[index]);
+        if (visibility == Visibility.INVISIBLE) {
+          // the subtree timing stuff was already executed by _animate(int, int)
+          if (_behaviors.isEmpty()) {
+            index = next[index];
+            continue;
+          }
+          hiddenEnd = next[index];
+        }
+        if (visibility == Visibility.VISIBLE) {
+          visibleEnd = next[index];
+        }
+      }
+      if (!worldTraversal) {
+        if (_traversalDepth == _traversalStack.length) {
+          _traversalStack = Arrays.copyOf(_traversalStack, 2 * _traversalDepth);
+        }
+        _traversalStack[_traversalDepth++] = next[index];
+      }
+      Node node = traversal[index];
+      _hidden = index < hiddenEnd;
+      index = _render(node) ? index + 1 : next[index];
+    }
+    if (!worldTraversal) {
+      while (_traversalDepth > base) {
+        _matrixHandler.popMatrix();
+        _traversalDepth--;
+      }
+    }
   }
 
   /**
-   * Used by the {@link #render(Node)} algorithm.
+   * Used by {@link #_render(int, int)}. Returns the {@code node} subtree visibility, or
+   * {@link Visibility#SEMIVISIBLE} if the subtree isn't bounded.
    */
-  protected void _render(Node node) {
-    _matrixHandler.pushMatrix();
-    node._execute(this);
-    _matrixHandler.applyTransformation(node);
+  protected Visibility _subtreeVisibility(Node node) {
+    if (!node._subtreeIsBounded) {
+      return Visibility.SEMIVISIBLE;
+    }
+    float[] bounds = node._subtreeBounds;
+    // empty subtrees aren't culled, so that their behaviors are still executed
+    if (bounds[0] > bounds[3]) {
+      return Visibility.SEMIVISIBLE;
+    }
+    if (coherence) {
+      if (node._coherences == null || node._coherences.length <= _slot) {
+        node._coherences = node._coherences == null ? new Coherence[_slot + 1] : Arrays.copyOf(node._coherences, _slot + 1);
+      }
+      Coherence coherence = node._coherences[_slot];
+      if (coherence == null) {
+        coherence = new Coherence();
+        node._coherences[_slot] = coherence;
+      }
+      return _coherentVisibility(coherence, false, bounds[0], bounds[1], bounds[2], bounds[3], bounds[4], bounds[5]);
+    }
+    return _boxVisibility(null, bounds[0], bounds[1], bounds[2], bounds[3], bounds[4], bounds[5]);
+  }
+
+  /**
+   * Used by {@link #_render(int, int)}. Renders {@code node} (without popping its matrix
+   * when not in {@link #worldTraversal} mode) and returns {@code false} if the node
+   * subtree should be skipped.
+   */
+  protected boolean _render(Node node) {
+    // read before the behavior runs, since it may render reentrantly
+    boolean hidden = _hidden;
+    if (worldTraversal) {
+      node._execute(this);
+      Matrix.multiply(_traversalModel, node._worldMatrix(), _traversalMatrix);
+      _matrixHandler.loadMatrix(_traversalMatrix);
+    }
+    else {
+      _matrixHandler.pushMatrix();
+      node._execute(this);
+      _matrixHandler.applyTransformation(node);
+    }
     // TODO ordering of operations is a bit experimental.
     // For instance should the visits go before pushMatrix?
     // I believe it belongs here, i.e., current node culling
@@ -2653,19 +3840,24 @@ public class Graph {
     // be executed once it's known for sure the node is not
     // culled :-/
     BiConsumer<Graph, Node> behavior = _behaviors.get(node.id());
-    if (behavior != null) {
+    // thread-safe behaviors were already executed by the preparation phase
+    if (behavior != null && !(_prepared && _threadSafeBehaviors.contains(node.id()))) {
       behavior.accept(this, node);
     }
-    if (!node.cull) {
+    if (!node.cull && !hidden) {
       if (node._bypass != _frameCount) {
         node._update(this);
         if (_backPicking(node)) {
           _bbNeed = true;
+          _signBackBuffer(node);
         }
         _trackFrontBuffer(node);
         _trackBackBuffer(node);
         if (isTagged(node) && node._highlight > 0 && node._highlight <= 1) {
-          _matrixHandler.pushMatrix();
+          // no need to restore the scaling when the children bind their own world matrices
+          if (!worldTraversal) {
+            _matrixHandler.pushMatrix();
+          }
           float scl = 1 + node._highlight;
           if (is2D()) {
             _matrixHandler.scale(scl, scl);
@@ -2674,43 +3866,66 @@ public class Graph {
             _matrixHandler.scale(scl, scl, scl);
           }
           _displayFrontHint(node);
-          _matrixHandler.popMatrix();
+          if (!worldTraversal) {
+            _matrixHandler.popMatrix();
+          }
         } else {
           _displayFrontHint(node);
         }
       }
-      for (Node child : node.children()) {
-        _render(child);
-      }
     }
-    _matrixHandler.popMatrix();
+    return !node.cull;
   }
 
   /**
    * Internal use. Traverse the scene {@link #nodes()}) into the
    * {@link #_backBuffer()} to perform picking on the scene {@link #nodes()}.
+   * <p>
+   * The whole buffer is rendered, unless {@link #pickingCache} is enabled, in which case
+   * the pass is skipped when its {@link #_backBufferArea()} is empty or when neither the
+   * back-pickable nodes nor the eye have changed since the last pass and its area already
+   * covers the current one.
    */
   protected void _renderBackBuffer() {
+    _renderBackBufferPass();
+    // direct queries should be issued again for the next pass to cover the whole buffer
+    _bbQueried = false;
+  }
+
+  /**
+   * Used by {@link #_renderBackBuffer()}. Renders the picking buffer pass, if any.
+   */
+  protected void _renderBackBufferPass() {
     if (_lastRendered == _frameCount && _bbNeed) {
       if (picking && _bb != null) {
+        long signature = 31 * _bbSignature + Arrays.hashCode(_projectionView._matrix);
+        signature = 31 * (31 * signature + width()) + height();
+        if (!_backBufferArea() || (pickingCache && signature == _bbPassSignature
+            && _bbPassArea[0] <= _bbArea[0] && _bbArea[0] + _bbArea[2] <= _bbPassArea[0] + _bbPassArea[2]
+            && _bbPassArea[1] <= _bbArea[1] && _bbArea[1] + _bbArea[3] <= _bbPassArea[1] + _bbPassArea[3])) {
+          return;
+        }
+        _bbPassSignature = signature;
+        System.arraycopy(_bbArea, 0, _bbPassArea, 0, 4);
         _initBackBuffer();
         _bbMatrixHandler.bind(projection(), view());
+        _updateTraversal();
         if (_subtrees.isEmpty()) {
-          for (Node node : _leadingNodes()) {
-            _renderBackBuffer(node);
-          }
+          _renderBackBuffer(0, _traversalSize);
         }
         else {
           Iterator<Node> iterator = _subtrees.iterator();
           while (iterator.hasNext()) {
             Node subtree = iterator.next();
-            if (subtree.reference() != null) {
-              _bbMatrixHandler.pushMatrix();
-              _bbMatrixHandler.applyWorldTransformation(subtree.reference());
-            }
-            _renderBackBuffer(subtree);
-            if (subtree.reference() != null) {
-              _bbMatrixHandler.popMatrix();
+            if (subtree.isAttached()) {
+              if (subtree.reference() != null && !worldTraversal) {
+                _bbMatrixHandler.pushMatrix();
+                _bbMatrixHandler.applyWorldTransformation(subtree.reference());
+              }
+              _renderBackBuffer(subtree._traversalIndex, _next[subtree._traversalIndex]);
+              if (subtree.reference() != null && !worldTraversal) {
+                _bbMatrixHandler.popMatrix();
+              }
             }
             iterator.remove();
           }
@@ -2721,19 +3936,114 @@ public class Graph {
   }
 
   /**
-   * Used by the {@link #_renderBackBuffer()} algorithm.
+   * Used by {@link #_renderBackBuffer()}. Computes the picking buffer pass {@code _bbArea}
+   * (x, y, width, height), i.e., the whole buffer when {@link #pickingCache} is disabled
+   * or when it's queried directly with {@link #tracks(Node, int, int)} (or any method
+   * calling it), and the (on-screen) rectangle bounding the pending rays otherwise.
+   * Returns {@code false} if the area is empty, i.e., if there's nothing to read back.
    */
-  protected void _renderBackBuffer(Node node) {
-    _bbMatrixHandler.pushMatrix();
-    _bbMatrixHandler.applyTransformation(node);
-    if (node.rendered(this) && _backPicking(node)) {
-      _displayBackHint(node);
+  protected boolean _backBufferArea() {
+    if (!pickingCache || _bbQueried) {
+      _bbArea[0] = 0;
+      _bbArea[1] = 0;
+      _bbArea[2] = width();
+      _bbArea[3] = height();
+      return true;
     }
-    if (!node.cull) {
-      for (Node child : node.children())
-        _renderBackBuffer(child);
+    int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = -1, maxY = -1;
+    for (Ray ray : _orays) {
+      if (0 <= ray._pixelX && ray._pixelX < width() && 0 <= ray._pixelY && ray._pixelY < height()) {
+        minX = Math.min(minX, ray._pixelX);
+        minY = Math.min(minY, ray._pixelY);
+        maxX = Math.max(maxX, ray._pixelX);
+        maxY = Math.max(maxY, ray._pixelY);
+      }
+    }
+    if (maxX < 0)
+      return false;
+    _bbArea[0] = minX;
+    _bbArea[1] = minY;
+    _bbArea[2] = maxX - minX + 1;
+    _bbArea[3] = maxY - minY + 1;
+    return true;
+  }
+
+  /**
+   * Used by {@link #_render(Node)}. Adds the back-pickable {@code node} state (world
+   * transformation stamp, hints and shapes) to the signature of the current frame picking
+   * buffer pass.
+   */
+  protected void _signBackBuffer(Node node) {
+    node._updateWorldCache();
+    long signature = 31 * _bbSignature + node.id();
+    signature = 31 * signature + node._worldStamp;
+    signature = 31 * signature + node._mask;
+    signature = 31 * signature + node._picking;
+    signature = 31 * signature + System.identityHashCode(node._imrShape);
+    signature = 31 * signature + System.identityHashCode(node._rmrShape);
+    signature = 31 * signature + System.identityHashCode(node._imrHUD);
+    signature = 31 * signature + System.identityHashCode(node._rmrHUD);
+    signature = 31 * signature + node._torusFaces;
+    signature = 31 * signature + Float.floatToIntBits(node._axesLength);
+    signature = 31 * signature + Float.floatToIntBits(node._cameraLength);
+    if (node._frustumGraphs != null && node.isHintEnabled(Node.BOUNDS)) {
+      for (Graph graph : node._frustumGraphs) {
+        signature = 31 * signature + (graph._projectionView == null ? 0 : Arrays.hashCode(graph._projectionView._matrix));
+      }
+    }
+    _bbSignature = signature;
+  }
+
+  /**
+   * Forces the picking buffer to be re-rendered at the end of the current frame, even if
+   * neither the eye nor any back-pickable node has changed, e.g., when the (immediate mode)
+   * shape of a node is animated without modifying the node itself. Only needed when
+   * {@link #pickingCache} is enabled.
+   *
+   * @see #pickingCache
+   */
+  public void refreshPicking() {
+    _bbPassSignature = 0;
+    Arrays.fill(_bbPassArea, 0);
+  }
+
+  /**
+   * Used by the {@link #_renderBackBuffer()} algorithm. Iteratively renders the nodes
+   * found in the {@code [begin, end)} range of the {@link #_updateTraversal()} pre-order.
+   */
+  protected void _renderBackBuffer(int begin, int end) {
+    Node[] traversal = _traversal;
+    int[] next = _next;
+    int base = _traversalDepth;
+    int index = begin;
+    while (index < end) {
+      Node node = traversal[index];
+      if (worldTraversal) {
+        _bbMatrixHandler.loadMatrix(node._worldMatrix());
+      }
+      else {
+        while (_traversalDepth > base && _traversalStack[_traversalDepth - 1] <= index) {
+          _bbMatrixHandler.popMatrix();
+          _traversalDepth--;
+        }
+        if (_traversalDepth == _traversalStack.length) {
+          _traversalStack = Arrays.copyOf(_traversalStack, 2 * _traversalDepth);
+        }
+        _traversalStack[_traversalDepth++] = next[index];
+        _bbMatrixHandler.pushMatrix();
+        _bbMatrixHandler.applyTransformation(node);
+      }
+      if (node.rendered(this) && _backPicking(node)) {
+        _displayBackHint(node);
+      }
+      index = node.cull ? next[index] : index + 1;
+    }
+    if (!worldTraversal) {
+      while (_traversalDepth > base) {
+        _bbMatrixHandler.popMatrix();
+        _traversalDepth--;
+      }
     }
-    _bbMatrixHandler.popMatrix();
   }
 
   protected void _emitBackBufferUniforms(Node node) {}
@@ -2770,19 +4080,36 @@ public class Graph {
   }
 
   /**
-   * Internally used by {@link #_render(Node)}.
+   * Internally used by {@link #_render(int, int)}. Only the pending rays binned (see
+   * {@link #_binRays()}) into the grid cells overlapped by the node bullseye are tested.
    */
   protected void _trackFrontBuffer(Node node) {
     if (_frontPicking(node) && _orays != null) {
       if (!_orays.isEmpty()) {
-        Vector projection = screenLocation(node.worldPosition());
-        Iterator<Ray> it = _orays.iterator();
-        while (it.hasNext()) {
-          Ray ray = it.next();
-          removeTag(ray._tag);
-          if (_tracks(node, ray._pixelX, ray._pixelY, projection)) {
-            tag(ray._tag, node);
-            it.remove();
+        if (!_raysBinned) {
+          _binRays();
+        }
+        int offset = _projection(node);
+        if (offset < 0)
+          return;
+        float x = _projections[offset];
+        float y = _projections[offset + 1];
+        float threshold = _bullsEyeThreshold(node);
+        int firstColumn = _rayColumn(x - threshold);
+        int lastColumn = _rayColumn(x + threshold);
+        int firstRow = _rayRow(y - threshold);
+        int lastRow = _rayRow(y + threshold);
+        for (int row = firstRow; row <= lastRow; row++) {
+          for (int column = firstColumn; column <= lastColumn; column++) {
+            int cell = row * _rayColumns + column;
+            for (int i = _rayCells[cell]; i < _rayCells[cell + 1]; i++) {
+              Ray ray = _binnedRays[i];
+              if (!ray._tracked && _tracks(node, ray._pixelX, ray._pixelY, x, y, threshold)) {
+                tag(ray._tag, node);
+                ray._tracked = true;
+                _orays.remove(ray);
+              }
+            }
           }
         }
       }
@@ -2790,7 +4117,132 @@ public class Graph {
   }
 
   /**
-   * Internally used by {@link #_render(Node)}.
+   * Used by {@link #_trackFrontBuffer(Node)}. Removes the tags of the pending rays and
+   * buckets them into a grid of {@code _rayCellSize} pixels wide cells (counting sort),
+   * so that {@code _binnedRays[_rayCells[cell]]} to {@code _binnedRays[_rayCells[cell + 1] - 1]}
+   * are the rays in {@code cell}. Rays out of the screen are binned into the border cells.
+   */
+  protected void _binRays() {
+    _rayColumns = Math.max(1, (width() + _rayCellSize - 1) / _rayCellSize);
+    _rayRows = Math.max(1, (height() + _rayCellSize - 1) / _rayCellSize);
+    int cells = _rayColumns * _rayRows;
+    if (_rayCells.length < cells + 1) {
+      _rayCells = new int[cells + 1];
+    } else {
+      Arrays.fill(_rayCells, 0, cells + 1, 0);
+    }
+    if (_binnedRays.length < _orays.size()) {
+      _binnedRays = new Ray[2 * _orays.size()];
+    }
+    for (Ray ray : _orays) {
+      removeTag(ray._tag);
+      _rayCells[_rayCell(ray) + 1]++;
+    }
+    for (int cell = 0; cell < cells; cell++) {
+      _rayCells[cell + 1] += _rayCells[cell];
+    }
+    // fill each cell from its end (in reverse ray order to keep the order within the cells),
+    // which leaves the cell start at _rayCells[cell + 1]
+    for (int i = _orays.size() - 1; i >= 0; i--) {
+      Ray ray = _orays.get(i);
+      _binnedRays[--_rayCells[_rayCell(ray) + 1]] = ray;
+    }
+    for (int cell = 0; cell < cells; cell++) {
+      _rayCells[cell] = _rayCells[cell + 1];
+    }
+    _rayCells[cells] = _orays.size();
+    _raysBinned = true;
+  }
+
+  protected int _rayCell(Ray ray) {
+    return _rayRow(ray._pixelY) * _rayColumns + _rayColumn(ray._pixelX);
+  }
+
+  protected int _rayColumn(float pixelX) {
+    return Math.max(0, Math.min(_rayColumns - 1, (int) Math.floor(pixelX / _rayCellSize)));
+  }
+
+  protected int _rayRow(float pixelY) {
+    return Math.max(0, Math.min(_rayRows - 1, (int) Math.floor(pixelY / _rayCellSize)));
+  }
+
+  /**
+   * Cached version of {@code screenLocation(node)}. Returns {@code null} if the node can't
+   * be projected.
+   *
+   * @see #_projection(Node)
+   */
+  protected Vector _screenLocation(Node node) {
+    int offset = _projection(node);
+    return offset < 0 ? null : new Vector(_projections[offset], _projections[offset + 1], _projections[offset + 2]);
+  }
+
+  /**
+   * Cached version of {@code pixelToSceneRatio(node.worldPosition())}.
+   *
+   * @see #_projection(Node)
+   */
+  protected float _pixelToSceneRatio(Node node) {
+    int offset = _projection(node);
+    return offset < 0 ? pixelToSceneRatio(node.worldPosition()) : _projections[offset + 3];
+  }
+
+  /**
+   * Same as {@code return pixelToSceneRatio(new Vector(x, y, z))}, but computed from the
+   * {@link #projectionView()} matrix without allocating any object.
+   *
+   * @see #pixelToSceneRatio(Vector)
+   */
+  protected float _pixelToSceneRatio(float x, float y, float z) {
+    float[] m = _projectionView._matrix;
+    // in perspective the clip w is the point depth along the view direction
+    return _type == Type.PERSPECTIVE ?
+        height() / (2 * Math.abs(m[3] * x + m[7] * y + m[11] * z + m[15]) * eye().worldMagnitude()) :
+        1 / eye().worldMagnitude();
+  }
+
+  /**
+   * Per-frame projection cache. Returns the offset within {@code _projections} of the
+   * {@code node} origin screen {@code x, y}, depth and pixel to scene ratio, or {@code -1}
+   * if the node can't be projected.
+   * <p>
+   * The entries are indexed by the node traversal index and are computed at most once per
+   * frame (the first time they're queried, typically while the node is rendered by
+   * {@link #_trackFrontBuffer(Node)} or when displaying its bullseye or HUD) from the
+   * node cached world position and the {@link #projectionView()} matrix. They're
+   * invalidated each time the graph is bound (i.e., when the frame changes or the eye is
+   * re-bound) and when the node world transformation changes. Nothing is allocated in
+   * steady state.
+   */
+  protected int _projection(Node node) {
+    node._updateWorldCache();
+    int slot = node._traversalIndex;
+    if (slot < 0 || slot >= _traversalSize) {
+      // detached nodes share the slot past the traversal end
+      slot = _traversalSize;
+    }
+    if (_projections.length < 4 * (slot + 1)) {
+      int length = Math.max(slot + 1, _traversal.length + 1);
+      _projections = Arrays.copyOf(_projections, 4 * length);
+      _projectionKeys = Arrays.copyOf(_projectionKeys, 2 * length);
+    }
+    int offset = 4 * slot;
+    if (_projectionKeys[2 * slot] != _projectionEpoch || _projectionKeys[2 * slot + 1] != node._worldStamp) {
+      float[] in = node._worldPosition._vector;
+      if (!_screenLocation(_projectionView._matrix, width(), height(), in, 0, _projections, offset)) {
+        _projections[offset] = Float.NaN;
+      }
+      else {
+        _projections[offset + 3] = _pixelToSceneRatio(in[0], in[1], in[2]);
+      }
+      _projectionKeys[2 * slot] = _projectionEpoch;
+      _projectionKeys[2 * slot + 1] = node._worldStamp;
+    }
+    return Float.isNaN(_projections[offset]) ? -1 : offset;
+  }
+
+  /**
+   * Internally used by {@link #_render(int, int)}.
    */
   protected void _trackBackBuffer(Node node) {
     if (_backPicking(node) && _orays != null) {
@@ -2801,6 +4253,7 @@ public class Graph {
           removeTag(ray._tag);
           if (_tracks(node, ray._pixelX, ray._pixelY)) {
             tag(ray._tag, node);
+            ray._tracked = true;
             it.remove();
           }
         }
@@ -2887,10 +4340,19 @@ public class Graph {
   }
 
   /**
-   * Returns {@code true} if the node is currently being tagged and {@code false} otherwise.
+   * Returns {@code true} if the node is currently being tagged (either individually or as
+   * part of a {@link #region(String)}) and {@code false} otherwise.
    */
   public boolean isTagged(Node node) {
-    return _tags.containsValue(node);
+    if (_tags.containsValue(node))
+      return true;
+    // regions are only looked up when any has been tagged
+    if (_regions.isEmpty())
+      return false;
+    for (Set<Node> region : _regions.values())
+      if (region.contains(node))
+        return true;
+    return false;
   }
 
   /**
@@ -2913,7 +4375,7 @@ public class Graph {
    * @see Node#isTagged(Graph)
    */
   public boolean hasTag(String tag, Node node) {
-    return node(tag) == node;
+    return node(tag) == node || (_regions.containsKey(tag) && _regions.get(tag).contains(node));
   }
 
   /**
@@ -2927,6 +4389,7 @@ public class Graph {
    */
   public void clearTags() {
     _tags.clear();
+    _regions.clear();
   }
 
   /**
@@ -2945,6 +4408,8 @@ public class Graph {
    */
   public void untag(Node node) {
     _tags.entrySet().removeIf(entry -> (node == entry.getValue()));
+    for (Set<Node> region : _regions.values())
+      region.remove(node);
   }
 
   /**
@@ -2958,7 +4423,8 @@ public class Graph {
 
   /**
    * Removes the {@code tag} so that a call to {@link #isTagValid(String)}
-   * will return {@code false}.
+   * will return {@code false}. The {@link #region(String)} tagged with {@code tag} is also
+   * removed.
    *
    * @see #node(String)
    * @see #tracks(Node, int, int)
@@ -2968,6 +4434,7 @@ public class Graph {
    */
   public void removeTag(String tag) {
     _tags.remove(tag);
+    _regions.remove(tag);
   }
 
   // Screen to node conversion
@@ -3054,6 +4521,29 @@ public class Graph {
     return _screenLocation(node != null ? node.worldLocation(vector) : vector, projectionView, width, height);
   }
 
+  /**
+   * Primitive version of {@link #_screenLocation(Vector, Matrix, int, int)}. Projects the
+   * world point found at {@code in[inOffset] ... in[inOffset + 2]} with the column-major
+   * {@code projectionView} matrix and writes its screen {@code x, y} and depth at
+   * {@code out[outOffset] ... out[outOffset + 2]}. Returns {@code false} (leaving
+   * {@code out} untouched) if the point can't be projected. Allocates nothing.
+   */
+  protected static boolean _screenLocation(float[] projectionView, int width, int height, float[] in, int inOffset, float[] out, int outOffset) {
+    float[] m = projectionView;
+    float x = in[inOffset], y = in[inOffset + 1], z = in[inOffset + 2];
+    float w = m[3] * x + m[7] * y + m[11] * z + m[15];
+    if (w == 0.0)
+      return false;
+    float ndcX = (m[0] * x + m[4] * y + m[8] * z + m[12]) / w;
+    float ndcY = (m[1] * x + m[5] * y + m[9] * z + m[13]) / w;
+    float ndcZ = (m[2] * x + m[6] * y + m[10] * z + m[14]) / w;
+    // map x, y and z to range 0-1 and then x, y to the viewport (y is inverted)
+    out[outOffset] = (ndcX * 0.5f + 0.5f) * width;
+    out[outOffset + 1] = (ndcY * 0.5f + 0.5f) * -height + height;
+    out[outOffset + 2] = ndcZ * 0.5f + 0.5f;
+    return true;
+  }
+
   protected static Vector _screenLocation(Vector obj, Matrix projectionViewMatrix, int width, int height) {
     float[] in = new float[4];
     float[] out = new float[4];
@@ -3173,6 +4663,120 @@ public class Graph {
     return new Vector(out[0], out[1], out[2]);
   }
 
+  /**
+   * Bulk version of {@link #screenLocation(Vector)}. Converts the world locations packed in
+   * {@code locations} ({@code x, y, z} per point) to screen space and writes them, packed
+   * in the same way, into {@code pixels}. As with {@link #screenLocation(Vector)} the
+   * {@code z} coordinate of each pixel is its depth. Points that can't be projected are set
+   * to {@code NaN}.
+   * <p>
+   * The cached {@link #projectionView()} is used, so nothing is allocated in the serial case
+   * (see {@link #_bulkThreshold}), while large batches are processed in parallel.
+   *
+   * @see #locations(float[], float[])
+   */
+  public void screenLocations(float[] locations, float[] pixels) {
+    _project(projectionView(), false, locations, pixels);
+  }
+
+  /**
+   * Bulk version of {@link #location(Vector)}. Converts the pixels packed in {@code pixels}
+   * ({@code x, y, depth} per pixel) to world space and writes them, packed in the same way,
+   * into {@code locations}. Pixels that can't be un-projected are set to {@code NaN}.
+   * <p>
+   * The cached {@link #projectionViewInverse()} is used, so nothing is allocated in the
+   * serial case (see {@link #_bulkThreshold}), while large batches are processed in parallel.
+   *
+   * @see #screenLocations(float[], float[])
+   */
+  public void locations(float[] pixels, float[] locations) {
+    _project(projectionViewInverse(), true, pixels, locations);
+  }
+
+  /**
+   * Used by {@link #screenLocations(float[], float[])} and {@link #locations(float[], float[])}.
+   */
+  protected void _project(Matrix matrix, boolean inverse, float[] in, float[] out) {
+    int count = Math.min(in.length, out.length) / 3;
+    if (count > _bulkThreshold)
+      ForkJoinPool.commonPool().invoke(new BulkProjection(matrix._matrix, inverse, width(), height(), in, out, 0, count));
+    else
+      _project(matrix._matrix, inverse, width(), height(), in, out, 0, count);
+  }
+
+  /**
+   * Projects (or un-projects when {@code inverse} is {@code true}) the {@code [begin, end)}
+   * range of the {@code in} points into {@code out}.
+   */
+  protected static void _project(float[] matrix, boolean inverse, int width, int height, float[] in, float[] out, int begin, int end) {
+    for (int i = begin; i < end; i++) {
+      int j = 3 * i;
+      if (!(inverse ? _location(matrix, width, height, in, j, out, j) : _screenLocation(matrix, width, height, in, j, out, j))) {
+        out[j] = Float.NaN;
+        out[j + 1] = Float.NaN;
+        out[j + 2] = Float.NaN;
+      }
+    }
+  }
+
+  /**
+   * A bulk (un)projection over the {@code [begin, end)} range of its input.
+   */
+  protected static class BulkProjection extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    float[] _matrix;
+    boolean _inverse;
+    int _width, _height;
+    float[] _in, _out;
+    int _begin, _end;
+
+    BulkProjection(float[] matrix, boolean inverse, int width, int height, float[] in, float[] out, int begin, int end) {
+      _matrix = matrix;
+      _inverse = inverse;
+      _width = width;
+      _height = height;
+      _in = in;
+      _out = out;
+      _begin = begin;
+      _end = end;
+    }
+
+    @Override
+    protected void compute() {
+      if (_end - _begin <= _bulkThreshold) {
+        _project(_matrix, _inverse, _width, _height, _in, _out, _begin, _end);
+      } else {
+        int middle = (_begin + _end) >>> 1;
+        invokeAll(new BulkProjection(_matrix, _inverse, _width, _height, _in, _out, _begin, middle),
+            new BulkProjection(_matrix, _inverse, _width, _height, _in, _out, middle, _end));
+      }
+    }
+  }
+
+  /**
+   * Primitive version of {@link #_location(Vector, Matrix, int, int)}. Un-projects the pixel
+   * found at {@code in[inOffset] ... in[inOffset + 2]} ({@code x, y, depth}) with the
+   * column-major {@code projectionViewInverse} matrix and writes its world location at
+   * {@code out[outOffset] ... out[outOffset + 2]}. Returns {@code false} (leaving
+   * {@code out} untouched) if the pixel can't be un-projected. Allocates nothing.
+   */
+  protected static boolean _location(float[] projectionViewInverse, int width, int height, float[] in, int inOffset, float[] out, int outOffset) {
+    float[] m = projectionViewInverse;
+    // map x and y from window coordinates (y is inverted) and then x, y and z to range -1 to 1
+    float x = in[inOffset] / width * 2 - 1;
+    float y = (in[inOffset + 1] - height) / -height * 2 - 1;
+    float z = in[inOffset + 2] * 2 - 1;
+    float w = m[3] * x + m[7] * y + m[11] * z + m[15];
+    if (w == 0)
+      return false;
+    float worldX = (m[0] * x + m[4] * y + m[8] * z + m[12]) / w;
+    float worldY = (m[1] * x + m[5] * y + m[9] * z + m[13]) / w;
+    out[outOffset + 2] = (m[2] * x + m[6] * y + m[10] * z + m[14]) / w;
+    out[outOffset] = worldX;
+    out[outOffset + 1] = worldY;
+    return true;
+  }
+
   /**
    * Converts {@code vector} displacement from normalized device coordinates (NDC) to screen space.
    * {@link #screenToNDCDisplacement(Vector)} performs the inverse transformation.
@@ -3968,10 +5572,147 @@ public class Graph {
     return interpolator._splineWeight;
   }
 
-  protected List<Node> _path(Node interpolator) {
+  /**
+   * Updates the {@code interpolator} path and returns its number of samples.
+   * Call it before {@link #_pathPositions(Node)} and {@link #_pathNode(Node, int)}.
+   */
+  protected int _path(Node interpolator) {
     return interpolator._interpolator._path();
   }
 
+  /**
+   * Tessellates the {@code interpolator} path so that the drawn polyline doesn't deviate
+   * more than {@link #splineTolerance()} pixels from the actual spline, and returns its
+   * number of vertices (see {@link #_splineVertices(Node)}). Each path segment is
+   * recursively halved while the distance between the spline and the edge midpoints,
+   * converted to pixels with the {@link #sceneToPixelRatio(Vector)} at the spline point,
+   * exceeds the tolerance. The result is cached and only recomputed when the path or the
+   * eye changes.
+   *
+   * @see #setSplineTolerance(float)
+   */
+  protected int _spline(Node interpolator) {
+    Interpolator path = interpolator._interpolator;
+    int size = path._path();
+    Spline spline = _splines.get(interpolator);
+    if (spline == null) {
+      spline = new Spline();
+      _splines.put(interpolator, spline);
+    }
+    float[] matrix = _projectionView._matrix;
+    if (spline._version != path._pathVersion || spline._tolerance != _splineTolerance
+        || spline._width != width() || spline._height != height() || !Arrays.equals(spline._projectionView, matrix)) {
+      spline._size = 0;
+      float[] c = path._pathCoefficients;
+      for (int segment = 0; segment < path.size() - 1; segment++) {
+        int offset = 12 * segment;
+        _addSplineVertex(spline, c[offset], c[offset + 1], c[offset + 2]);
+        float x = c[offset] + (c[offset + 3] + (c[offset + 6] + c[offset + 9]));
+        float y = c[offset + 1] + (c[offset + 4] + (c[offset + 7] + c[offset + 10]));
+        float z = c[offset + 2] + (c[offset + 5] + (c[offset + 8] + c[offset + 11]));
+        _subdivideSpline(spline, c, offset, 0, c[offset], c[offset + 1], c[offset + 2], 1, x, y, z, 0);
+      }
+      if (size > 0) {
+        float[] positions = path._pathPositions;
+        _addSplineVertex(spline, positions[3 * (size - 1)], positions[3 * (size - 1) + 1], positions[3 * (size - 1) + 2]);
+      }
+      spline._version = path._pathVersion;
+      spline._tolerance = _splineTolerance;
+      spline._width = width();
+      spline._height = height();
+      System.arraycopy(matrix, 0, spline._projectionView, 0, 16);
+    }
+    return spline._size;
+  }
+
+  /**
+   * Returns the {@code interpolator} tessellated path vertices, packed as {@code x, y, z}.
+   *
+   * @see #_spline(Node)
+   */
+  protected float[] _splineVertices(Node interpolator) {
+    return _splines.get(interpolator)._vertices;
+  }
+
+  /**
+   * Internal use. Adds the spline vertices (if any) lying between the {@code (ax, ay, az)}
+   * and {@code (bx, by, bz)} segment points, at parameters {@code a} and {@code b}
+   * respectively, but not the points themselves. The segment cubic coefficients are
+   * found at {@code coefficients[offset]} (see {@link #_spline(Node)}).
+   */
+  protected void _subdivideSpline(Spline spline, float[] coefficients, int offset, float a, float ax, float ay, float az,
+                                  float b, float bx, float by, float bz, int depth) {
+    if (depth == _splineDepth)
+      return;
+    float t = (a + b) / 2;
+    float[] c = coefficients;
+    float x = c[offset] + (c[offset + 3] + (c[offset + 6] + c[offset + 9] * t) * t) * t;
+    float y = c[offset + 1] + (c[offset + 4] + (c[offset + 7] + c[offset + 10] * t) * t) * t;
+    float z = c[offset + 2] + (c[offset + 5] + (c[offset + 8] + c[offset + 11] * t) * t) * t;
+    float dx = x - (ax + bx) / 2;
+    float dy = y - (ay + by) / 2;
+    float dz = z - (az + bz) / 2;
+    // the first split is always performed since the spline may cross the edge midpoint
+    if (depth > 0 && (float) Math.sqrt(dx * dx + dy * dy + dz * dz) * _pixelToSceneRatio(x, y, z) <= _splineTolerance)
+      return;
+    _subdivideSpline(spline, coefficients, offset, a, ax, ay, az, t, x, y, z, depth + 1);
+    _addSplineVertex(spline, x, y, z);
+    _subdivideSpline(spline, coefficients, offset, t, x, y, z, b, bx, by, bz, depth + 1);
+  }
+
+  /**
+   * Internal use. Appends the {@code (x, y, z)} vertex to the {@code spline}.
+   */
+  protected void _addSplineVertex(Spline spline, float x, float y, float z) {
+    if (spline._vertices.length < 3 * (spline._size + 1)) {
+      spline._vertices = Arrays.copyOf(spline._vertices, 2 * spline._vertices.length);
+    }
+    spline._vertices[3 * spline._size] = x;
+    spline._vertices[3 * spline._size + 1] = y;
+    spline._vertices[3 * spline._size + 2] = z;
+    spline._size++;
+  }
+
+  /**
+   * Returns the maximum distance (in pixels) between the drawn keyframe paths (see the
+   * {@link Node#KEYFRAMES} hint) and their actual splines. Default is {@code 1}.
+   *
+   * @see #setSplineTolerance(float)
+   */
+  public float splineTolerance() {
+    return _splineTolerance;
+  }
+
+  /**
+   * Sets the {@link #splineTolerance()}. Smaller values yield smoother but costlier paths.
+   */
+  public void setSplineTolerance(float tolerance) {
+    if (tolerance <= 0) {
+      System.out.println("Warning: spline tolerance should be positive. Nothing done!");
+      return;
+    }
+    _splineTolerance = tolerance;
+  }
+
+  /**
+   * Returns the {@code interpolator} path sample world positions, packed as {@code x, y, z}.
+   *
+   * @see #_path(Node)
+   */
+  protected float[] _pathPositions(Node interpolator) {
+    return interpolator._interpolator._pathPositions;
+  }
+
+  /**
+   * Returns a node having the {@code interpolator} keyframes hint, set at the path
+   * sample {@code index}.
+   *
+   * @see #_path(Node)
+   */
+  protected Node _pathNode(Node interpolator, int index) {
+    return interpolator._interpolator._pathNode(index);
+  }
+
   protected static boolean _isHintEnabled(int mask, int hint) {
     return ~(mask | ~hint) == 0;
   }
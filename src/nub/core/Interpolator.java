@@ -15,6 +15,7 @@ import nub.primitives.Quaternion;
 import nub.primitives.Vector;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.ListIterator;
@@ -58,6 +59,12 @@ class Interpolator {
     protected float _time;
     protected boolean _handled;
     protected Node _keyFrame;
+    // tells whether or not the key-frame changed since its tangents were computed,
+    // see _modify() and _updateModifiedKeyFrames()
+    protected boolean _modified;
+    // tells whether or not the path segment starting at this key-frame should be updated,
+    // see _updatePath()
+    protected boolean _segmentModified;
 
     KeyFrame(Node node, float time, boolean handled) {
       _keyFrame = node;
@@ -82,6 +89,42 @@ class Interpolator {
       return new KeyFrame(this);
     }
 
+    /**
+     * Registers the key-frame within its node and the node ancestors (see
+     * {@link Node#_keyFrames}), so that it gets notified of their modifications.
+     */
+    protected void _register() {
+      for (Node node = _keyFrame; node != null; node = node.reference()) {
+        if (node._keyFrames == null) {
+          node._keyFrames = new ArrayList<KeyFrame>();
+        }
+        node._keyFrames.add(this);
+      }
+    }
+
+    /**
+     * Removes the key-frame registration (see {@link #_register()}).
+     */
+    protected void _unregister() {
+      for (Node node = _keyFrame; node != null; node = node.reference()) {
+        if (node._keyFrames != null) {
+          node._keyFrames.remove(this);
+        }
+      }
+    }
+
+    /**
+     * Called when the key-frame node (or any of its ancestors) is modified. Flags the
+     * key-frame and records it among the interpolator modified ones, see
+     * {@link #_checkValidity()}.
+     */
+    protected void _modify() {
+      if (!_modified) {
+        _modified = true;
+        _modifiedKeyFrames.add(this);
+      }
+    }
+
     /**
      * Returns the cache {@code _tangentVector} world-view. Good for drawing. See {@link #_updatePath()}.
      */
@@ -134,9 +177,22 @@ class Interpolator {
   // Attention: We should go like this: protected Map<Float, Node> _list;
   // but Java doesn't allow to iterate backwards a map
   protected List<KeyFrame> _list;
-  protected ListIterator<KeyFrame> _backwards;
-  protected ListIterator<KeyFrame> _forwards;
-  protected List<Node> _path;
+  // sorted keyframe times (_times[i] == _list.get(i)._time)
+  protected float[] _times;
+  // current segment keyframe indices, see _updateCurrentKeyFrameForTime(float)
+  protected int _backwards;
+  protected int _forwards;
+  // sampled path world positions (x, y, z), orientations (x, y, z, w) and magnitudes,
+  // see _updatePath()
+  protected float[] _pathPositions, _pathOrientations, _pathMagnitudes;
+  protected int _pathSize;
+  // world cubic coefficients of the path segments (12 per segment: position, tangent and
+  // the 2nd and 3rd degree terms), see _updateSegment(int)
+  protected float[] _pathCoefficients;
+  // incremented each time the path changes
+  protected long _pathVersion;
+  // node used to render the keyframe hints along the path, see _pathNode(int)
+  protected Node _pathNode;
 
   // Main node
   Node _node;
@@ -156,6 +212,12 @@ class Interpolator {
   protected boolean _currentKeyFrameValid;
   protected boolean _splineCacheIsValid;
   protected Vector _vector1, _vector2;
+  // squad result scratch, see interpolate(float) and _updateSegment(int)
+  protected Quaternion _quaternion;
+  // segment end orientations scratch, see _updateSegment(int)
+  protected Quaternion _quaternion1, _quaternion2;
+  // keyframes modified since the last check, see KeyFrame._modify() and _checkValidity()
+  protected ArrayList<KeyFrame> _modifiedKeyFrames = new ArrayList<KeyFrame>();
 
   /**
    * Creates an interpolator for the given {@code node}. Note that
@@ -163,7 +225,11 @@ class Interpolator {
    */
   public Interpolator(Node node) {
     _list = new ArrayList<KeyFrame>();
-    _path = new ArrayList<Node>();
+    _times = new float[16];
+    _pathPositions = new float[3];
+    _pathOrientations = new float[4];
+    _pathMagnitudes = new float[1];
+    _pathCoefficients = new float[12];
     _node = node;
     _t = 0.0f;
     _speed = 1.0f;
@@ -172,8 +238,7 @@ class Interpolator {
     _valuesAreValid = false;
     _currentKeyFrameValid = false;
     _splineCacheIsValid = false;
-    _backwards = _list.listIterator();
-    _forwards = _list.listIterator();
+    _initBuffers();
   }
 
   protected Interpolator(Interpolator other) {
@@ -181,8 +246,14 @@ class Interpolator {
     for (KeyFrame element : other._list) {
       KeyFrame keyFrame = element.copy();
       this._list.add(keyFrame);
+      keyFrame._register();
+      keyFrame._modify();
     }
-    this._path = new ArrayList<Node>();
+    this._times = Arrays.copyOf(other._times, other._times.length);
+    this._pathPositions = new float[3];
+    this._pathOrientations = new float[4];
+    this._pathMagnitudes = new float[1];
+    this._pathCoefficients = new float[12];
     this._node = other._node;
     this._t = other._t;
     this._speed = other._speed;
@@ -191,8 +262,18 @@ class Interpolator {
     this._valuesAreValid = false;
     this._currentKeyFrameValid = false;
     this._splineCacheIsValid = false;
-    this._backwards = _list.listIterator();
-    this._forwards = _list.listIterator();
+    this._initBuffers();
+  }
+
+  /**
+   * Internal use. Allocates the buffers used by {@link #interpolate(float)}.
+   */
+  protected void _initBuffers() {
+    _vector1 = new Vector();
+    _vector2 = new Vector();
+    _quaternion = new Quaternion();
+    _quaternion1 = new Quaternion();
+    _quaternion2 = new Quaternion();
   }
 
   // TODO copy is experimental
@@ -416,7 +497,15 @@ class Interpolator {
       return;
     if (node == null)
       return;
-    _list.add(new KeyFrame(node, _list.isEmpty() ? time : _list.get(_list.size() - 1)._time + time, handled));
+    KeyFrame keyFrame = new KeyFrame(node, _list.isEmpty() ? time : _list.get(_list.size() - 1)._time + time, handled);
+    if (_list.size() == _times.length) {
+      _times = Arrays.copyOf(_times, 2 * _times.length);
+    }
+    _times[_list.size()] = keyFrame._time;
+    _list.add(keyFrame);
+    keyFrame._register();
+    // the tangent of the previous keyframe is updated as well
+    keyFrame._modify();
     _valuesAreValid = false;
     _pathIsValid = false;
     _currentKeyFrameValid = false;
@@ -432,22 +521,12 @@ class Interpolator {
       return null;
     int index = 0;
     if (_list.size() > 1 && time >= 0) {
-      float previousTime = firstTime();
-      float currentTime;
-      while (index < _list.size()) {
-        currentTime = _list.get(index)._time;
-        if (currentTime < time) {
-          previousTime = currentTime;
-        } else {
-          if (time - previousTime < currentTime - time & index > 0)
-            index--;
-          break;
-        }
-        index++;
-      }
+      index = _ceiling(time);
+      if (index == _list.size())
+        index--;
+      else if (index > 0 && time - _times[index - 1] < _times[index] - time)
+        index--;
     }
-    if (index == _list.size())
-      index--;
     KeyFrame keyFrame = _list.get(index);
     _valuesAreValid = false;
     _pathIsValid = false;
@@ -457,6 +536,13 @@ class Interpolator {
       _active = false;
     }
     _list.remove(index);
+    keyFrame._unregister();
+    System.arraycopy(_times, index + 1, _times, index, _list.size() - index);
+    // the tangents of the keyframes next to the removed one should be updated
+    if (index > 0)
+      _list.get(index - 1)._modify();
+    if (index < _list.size())
+      _list.get(index)._modify();
     _t = firstTime();
     if (rerun) {
       if (_list.size() > 1)
@@ -488,8 +574,11 @@ class Interpolator {
         }
       }
     }
+    for (KeyFrame keyFrame : _list)
+      keyFrame._unregister();
     _list.clear();
-    _path.clear();
+    _modifiedKeyFrames.clear();
+    _pathSize = 0;
     _pathIsValid = false;
     _valuesAreValid = false;
     _currentKeyFrameValid = false;
@@ -498,6 +587,11 @@ class Interpolator {
   /**
    * Interpolate {@code node} at time {@code time} (expressed in milliseconds).
    * {@code t} is set to {@code time} and {@code node} is set accordingly.
+   * <p>
+   * No object is allocated in the process, when the keyframes share the {@code node}
+   * {@link Node#reference()} and the node has neither translation nor rotation filters,
+   * since its {@link Node#position()} and {@link Node#orientation()} are then updated in
+   * place (just as {@link Node#translate(Vector)} and {@link Node#rotate(Quaternion)} do).
    */
   public void interpolate(float time) {
     this._checkValidity();
@@ -510,178 +604,291 @@ class Interpolator {
     if (!_splineCacheIsValid)
       _updateSplineCache();
     float alpha;
-    float dt = _list.get(_forwards.nextIndex())._time - _list.get(_backwards.nextIndex())._time;
+    float dt = _times[_forwards] - _times[_backwards];
     if (dt == 0)
       alpha = 0.0f;
     else
-      alpha = (time - _list.get(_backwards.nextIndex())._time) / dt;
-    Vector pos = Vector.add(_list.get(_backwards.nextIndex())._translation(), Vector.multiply(
-        Vector.add(_list.get(_backwards.nextIndex())._tangentVector,
-            Vector.multiply(Vector.add(_vector1, Vector.multiply(_vector2, alpha)), alpha)), alpha));
-    float mag = Vector.lerp(_list.get(_backwards.nextIndex())._scaling(),
-        _list.get(_forwards.nextIndex())._scaling(), alpha);
-    Quaternion q = Quaternion.squad(_list.get(_backwards.nextIndex())._rotation(),
-        _list.get(_backwards.nextIndex())._tangentQuaternion,
-        _list.get(_forwards.nextIndex())._tangentQuaternion,
-        _list.get(_forwards.nextIndex())._rotation(), alpha);
-    _node.setPosition(pos);
-    _node.setOrientation(q);
+      alpha = (time - _times[_backwards]) / dt;
+    KeyFrame backwards = _list.get(_backwards);
+    KeyFrame forwards = _list.get(_forwards);
+    float[] translation = backwards._translation()._vector;
+    float[] tangent = backwards._tangentVector._vector;
+    float[] v1 = _vector1._vector;
+    float[] v2 = _vector2._vector;
+    _node._setPosition(translation[0] + (tangent[0] + (v1[0] + v2[0] * alpha) * alpha) * alpha,
+        translation[1] + (tangent[1] + (v1[1] + v2[1] * alpha) * alpha) * alpha,
+        translation[2] + (tangent[2] + (v1[2] + v2[2] * alpha) * alpha) * alpha);
+    float mag = Vector.lerp(backwards._scaling(), forwards._scaling(), alpha);
+    Quaternion orientation = Quaternion.squad(backwards._rotation(), backwards._tangentQuaternion,
+        forwards._tangentQuaternion, forwards._rotation(), alpha, _quaternion);
+    _node._setOrientation(orientation);
     _node.setMagnitude(mag);
   }
 
   /**
-   * Internal use.
+   * Internal use. Updates the current segment, i.e., the {@code _backwards} and
+   * {@code _forwards} keyframe indices, which are kept while {@code time} lies within
+   * their times. Otherwise, {@code _forwards} becomes the first keyframe which time isn't
+   * less than {@code time} (or the last one) and {@code _backwards} the keyframe just
+   * before it (or the same one if {@code time} matches its time or precedes the path).
+   * <p>
+   * Moving to a contiguous segment (sequential playback) costs O(1), while seeking to any
+   * other time costs O(log n).
    */
   protected void _updateCurrentKeyFrameForTime(float time) {
     // TODO: Special case for loops when closed path is implemented !!
-    if (!_currentKeyFrameValid)
-      _backwards = _list.listIterator();
-    while (_list.get(_backwards.nextIndex())._time > time) {
-      _currentKeyFrameValid = false;
-      if (!_backwards.hasPrevious())
-        break;
-      _backwards.previous();
-    }
-    if (!_currentKeyFrameValid)
-      _forwards = _list.listIterator(_backwards.nextIndex());
-    while (_list.get(_forwards.nextIndex())._time < time) {
-      _currentKeyFrameValid = false;
-      if (!_forwards.hasNext())
-        break;
-      _forwards.next();
+    if (_currentKeyFrameValid && _times[_backwards] <= time && time <= _times[_forwards])
+      return;
+    int size = _list.size();
+    int forwards;
+    if (_currentKeyFrameValid && time > _times[_forwards] && _forwards + 1 < size && time <= _times[_forwards + 1]) {
+      forwards = _forwards + 1;
+    } else if (_currentKeyFrameValid && time < _times[_backwards] && _backwards > 0 && time > _times[_backwards - 1]) {
+      forwards = _backwards;
+    } else {
+      forwards = Math.min(_ceiling(time), size - 1);
     }
-    if (!_currentKeyFrameValid) {
-      _backwards = _list.listIterator(_forwards.nextIndex());
-      if ((_backwards.hasPrevious()) && (time < _list.get(_forwards.nextIndex())._time))
-        _backwards.previous();
-      _currentKeyFrameValid = true;
-      _splineCacheIsValid = false;
+    _forwards = forwards;
+    _backwards = forwards > 0 && time < _times[forwards] ? forwards - 1 : forwards;
+    _currentKeyFrameValid = true;
+    _splineCacheIsValid = false;
+  }
+
+  /**
+   * Internal use. Returns the index of the first keyframe which time isn't less than
+   * {@code time}, or {@link #size()} if there's none (binary search).
+   */
+  protected int _ceiling(float time) {
+    int low = 0, high = _list.size();
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (_times[middle] < time)
+        low = middle + 1;
+      else
+        high = middle;
     }
+    return low;
   }
 
   /**
    * Internal use. Used by {@link #interpolate(float)}.
    */
   protected void _updateSplineCache() {
-    Vector deltaP = Vector.subtract(_list.get(_forwards.nextIndex())._translation(),
-        _list.get(_backwards.nextIndex())._translation());
-    _vector1 = Vector.add(Vector.multiply(deltaP, 3.0f), Vector.multiply(_list.get(_backwards.nextIndex())._tangentVector, (-2.0f)));
-    _vector1 = Vector.subtract(_vector1, _list.get(_forwards.nextIndex())._tangentVector);
-    _vector2 = Vector.add(Vector.multiply(deltaP, (-2.0f)), _list.get(_backwards.nextIndex())._tangentVector);
-    _vector2 = Vector.add(_vector2, _list.get(_forwards.nextIndex())._tangentVector);
+    KeyFrame backwards = _list.get(_backwards);
+    KeyFrame forwards = _list.get(_forwards);
+    float[] p1 = backwards._translation()._vector;
+    float[] p2 = forwards._translation()._vector;
+    float[] t1 = backwards._tangentVector._vector;
+    float[] t2 = forwards._tangentVector._vector;
+    for (int i = 0; i < 3; i++) {
+      float delta = p2[i] - p1[i];
+      _vector1._vector[i] = delta * 3.0f + t1[i] * (-2.0f) - t2[i];
+      _vector2._vector[i] = delta * (-2.0f) + t1[i] + t2[i];
+    }
     _splineCacheIsValid = true;
   }
 
   /**
    * Computes a path from {@link #keyFrames()} for the interpolator to be drawn.
    * <p>
-   * Calls {@link #_updatePath()} and then returns a list of nodes defining the
-   * interpolator path (which is different than that of {@link #keyFrames()}).
+   * Calls {@link #_updatePath()} and then returns the number of samples defining the
+   * interpolator path (which is different than that of {@link #keyFrames()}). Sample
+   * {@code i} world position is found at {@code _pathPositions[3 * i]},
+   * {@code _pathPositions[3 * i + 1]} and {@code _pathPositions[3 * i + 2]}, its world
+   * orientation at {@code _pathOrientations[4 * i]} ... {@code _pathOrientations[4 * i + 3]}
+   * and its world magnitude at {@code _pathMagnitudes[i]}.
    * <p>
-   * Use it in your interpolator path drawing routine.
+   * Use it in your interpolator path drawing routine, together with {@link #_pathNode(int)}
+   * to render the keyframe hints.
    */
-  protected List<Node> _path() {
+  protected int _path() {
     _updatePath();
-    return _path;
+    return _pathSize;
   }
 
   /**
-   * Internal use. Call {@link #_checkValidity()} and if path is not valid recomputes it.
+   * Returns a (detached) node having the interpolator node keyframes hint and set
+   * at the path sample {@code index} (see {@link #_path()}). Note that the same node
+   * (and the same world transformation cache objects) is returned for all samples.
+   */
+  protected Node _pathNode(int index) {
+    Node node = _pathNode;
+    if (node == null) {
+      node = _pathNode = new Node(false);
+      node._setHint(_node, _node._keyframesMask);
+      node._updateWorldCache();
+    }
+    System.arraycopy(_pathPositions, 3 * index, node._position._vector, 0, 3);
+    System.arraycopy(_pathOrientations, 4 * index, node._orientation._quaternion, 0, 4);
+    node._magnitude = _pathMagnitudes[index];
+    // the node is detached and has no reference, so its world transformation cache is
+    // refreshed right away, instead of calling node._modified() which would invalidate
+    // the world caches of all the other nodes and touch the spatial index
+    node._worldPosition.set(node._position);
+    node._worldOrientation.set(node._orientation);
+    node._worldMagnitude = node._magnitude;
+    node._worldStamp = Node._stamps.incrementAndGet();
+    node._worldMatrixIsValid = false;
+    node._viewIsValid = false;
+    node._viewInverseIsValid = false;
+    return node;
+  }
+
+  /**
+   * Internal use. Call {@link #_checkValidity()} and updates the path. Only the segments
+   * which are affected by the modified keyframes are recomputed, unless the path isn't
+   * valid (e.g., after adding or removing keyframes) in which case it is entirely rebuilt.
    */
   protected void _updatePath() {
     _checkValidity();
-    if (!_pathIsValid) {
-      _path.clear();
-      if (_list.isEmpty())
-        return;
-      if (!_valuesAreValid)
-        _updateModifiedKeyFrames();
-      if (_list.get(0) == _list.get(_list.size() - 1)) {
-        _path.add(new Node(_list.get(0)._keyFrame.worldPosition(), _list.get(0)._keyFrame.worldOrientation(), _list.get(0)._keyFrame.worldMagnitude(), false));
+    if (_list.isEmpty()) {
+      _pathSize = 0;
+      _pathIsValid = false;
+      return;
+    }
+    if (!_valuesAreValid)
+      _updateModifiedKeyFrames();
+    int size = _list.size();
+    int count = (size - 1) * Node.maxSteps + 1;
+    if (!_pathIsValid || _pathSize != count) {
+      if (_pathMagnitudes.length < count) {
+        _pathPositions = new float[3 * count];
+        _pathOrientations = new float[4 * count];
+        _pathMagnitudes = new float[count];
       }
-      else {
-        KeyFrame[] keyFrames = new KeyFrame[4];
-        keyFrames[0] = _list.get(0);
-        keyFrames[1] = keyFrames[0];
-        int index = 1;
-        keyFrames[2] = (index < _list.size()) ? _list.get(index) : null;
-        index++;
-        keyFrames[3] = (index < _list.size()) ? _list.get(index) : null;
-        while (keyFrames[2] != null) {
-          Vector pdiff = Vector.subtract(keyFrames[2]._keyFrame.worldPosition(), keyFrames[1]._keyFrame.worldPosition());
-          Vector pvec1 = Vector.add(Vector.multiply(pdiff, 3.0f), Vector.multiply(keyFrames[1]._tangentVector(), (-2.0f)));
-          pvec1 = Vector.subtract(pvec1, keyFrames[2]._tangentVector());
-          Vector pvec2 = Vector.add(Vector.multiply(pdiff, (-2.0f)), keyFrames[1]._tangentVector());
-          pvec2 = Vector.add(pvec2, keyFrames[2]._tangentVector());
-          for (int step = 0; step < Node.maxSteps; ++step) {
-            float alpha = step / (float) Node.maxSteps;
-            Node node = new Node(
-                    Vector.add(keyFrames[1]._keyFrame.worldPosition(), Vector.multiply(Vector.add(keyFrames[1]._tangentVector(), Vector.multiply(Vector.add(pvec1, Vector.multiply(pvec2, alpha)), alpha)), alpha)),
-                    Quaternion.squad(keyFrames[1]._keyFrame.worldOrientation(), keyFrames[1]._tangentQuaternion(), keyFrames[2]._tangentQuaternion(), keyFrames[2]._keyFrame.worldOrientation(), alpha),
-                    Vector.lerp(keyFrames[1]._keyFrame.worldMagnitude(), keyFrames[2]._keyFrame.worldMagnitude(), alpha), false);
-            node._setHint(_node, _node._keyframesMask);
-            _path.add(node);
-          }
-          // Shift
-          keyFrames[0] = keyFrames[1];
-          keyFrames[1] = keyFrames[2];
-          keyFrames[2] = keyFrames[3];
-          index++;
-          keyFrames[3] = (index < _list.size()) ? _list.get(index) : null;
+      if (_pathCoefficients.length < 12 * size)
+        _pathCoefficients = new float[12 * size];
+      _pathSize = count;
+      for (KeyFrame keyFrame : _list)
+        keyFrame._segmentModified = true;
+      if (_pathNode != null)
+        _pathNode._setHint(_node, _node._keyframesMask);
+      _pathIsValid = true;
+    }
+    for (int index = 0; index < size; index++) {
+      KeyFrame keyFrame = _list.get(index);
+      if (keyFrame._segmentModified) {
+        if (index + 1 < size) {
+          _updateSegment(index);
+        } else {
+          // last keyframe
+          Node node = keyFrame._keyFrame;
+          System.arraycopy(node.worldPosition()._vector, 0, _pathPositions, 3 * (count - 1), 3);
+          System.arraycopy(node.worldOrientation()._quaternion, 0, _pathOrientations, 4 * (count - 1), 4);
+          _pathMagnitudes[count - 1] = node.worldMagnitude();
         }
-        // Add last KeyFrame
-        _path.add(new Node(keyFrames[1]._keyFrame.worldPosition(), keyFrames[1]._keyFrame.worldOrientation(), keyFrames[1]._keyFrame.worldMagnitude(),false));
+        keyFrame._segmentModified = false;
+        _pathVersion++;
       }
-      _pathIsValid = true;
     }
   }
 
   /**
-   * Internal use.
+   * Internal use. Recomputes the {@code Node.maxSteps} path samples of the segment defined
+   * by the keyframes at {@code index} and {@code index + 1}. Called by {@link #_updatePath()}.
+   */
+  protected void _updateSegment(int index) {
+    KeyFrame keyFrame1 = _list.get(index);
+    KeyFrame keyFrame2 = _list.get(index + 1);
+    // the keyframe world caches are read (and their orientations normalized, as
+    // worldOrientation() does) without copying them
+    keyFrame1._keyFrame._updateWorldCache();
+    keyFrame2._keyFrame._updateWorldCache();
+    float[] p1 = keyFrame1._keyFrame._worldPosition._vector;
+    float[] p2 = keyFrame2._keyFrame._worldPosition._vector;
+    float[] t1 = keyFrame1._tangentVector()._vector;
+    float[] t2 = keyFrame2._tangentVector()._vector;
+    Quaternion q1 = _quaternion1;
+    Quaternion q2 = _quaternion2;
+    q1.set(keyFrame1._keyFrame._worldOrientation);
+    q2.set(keyFrame2._keyFrame._worldOrientation);
+    Quaternion tq1 = keyFrame1._tangentQuaternion();
+    Quaternion tq2 = keyFrame2._tangentQuaternion();
+    float m1 = keyFrame1._keyFrame.worldMagnitude();
+    float m2 = keyFrame2._keyFrame.worldMagnitude();
+    // the segment coefficients are computed in place, see _pathCoefficients
+    float[] c = _pathCoefficients;
+    int offset = 12 * index;
+    System.arraycopy(p1, 0, c, offset, 3);
+    System.arraycopy(t1, 0, c, offset + 3, 3);
+    for (int i = 0; i < 3; i++) {
+      float delta = p2[i] - p1[i];
+      c[offset + 6 + i] = delta * 3.0f + t1[i] * (-2.0f) - t2[i];
+      c[offset + 9 + i] = delta * (-2.0f) + t1[i] + t2[i];
+    }
+    Quaternion orientation = _quaternion;
+    for (int step = 0; step < Node.maxSteps; ++step) {
+      float alpha = step / (float) Node.maxSteps;
+      int sample = index * Node.maxSteps + step;
+      for (int i = 0; i < 3; i++) {
+        _pathPositions[3 * sample + i] = p1[i] + (t1[i] + (c[offset + 6 + i] + c[offset + 9 + i] * alpha) * alpha) * alpha;
+      }
+      Quaternion.squad(q1, tq1, tq2, q2, alpha, orientation);
+      System.arraycopy(orientation._quaternion, 0, _pathOrientations, 4 * sample, 4);
+      _pathMagnitudes[sample] = Vector.lerp(m1, m2, alpha);
+    }
+  }
+
+  /**
+   * Internal use. Updates the tangents of the keyframes which are affected by the
+   * modified ones (see {@link #_checkValidity()}), i.e., those of the modified keyframes
+   * and their immediate neighbors, and flags the path segments that should be updated
+   * accordingly (see {@link #_updatePath()}). The results are the same as those of
+   * recomputing all the tangents.
    */
   protected void _updateModifiedKeyFrames() {
-    KeyFrame keyFrame;
-    KeyFrame prev = _list.get(0);
-    keyFrame = _list.get(0);
-    int index = 1;
-    while (keyFrame != null) {
-      KeyFrame next = (index < _list.size()) ? _list.get(index) : null;
-      index++;
-      if (next != null) {
-        // Interpolate using the shortest path between two quaternions
-        // See: https://stackoverflow.com/questions/2886606/flipping-issue-when-interpolating-rotations-using-quaternions
+    int size = _list.size();
+    for (int index = 0; index < size; index++) {
+      KeyFrame keyFrame = _list.get(index);
+      KeyFrame prev = index > 0 ? _list.get(index - 1) : keyFrame;
+      KeyFrame next = index + 1 < size ? _list.get(index + 1) : null;
+      // Interpolate using the shortest path between two quaternions
+      // See: https://stackoverflow.com/questions/2886606/flipping-issue-when-interpolating-rotations-using-quaternions
+      // Note that the orientations of unmodified consecutive keyframes were already checked.
+      if (next != null && (keyFrame._modified || next._modified)) {
         if (Quaternion.dot(next._keyFrame.orientation(), keyFrame._keyFrame.orientation()) < 0) {
           // change sign
           next._keyFrame.orientation().negate();
+          // which also flags next and the keyframes descending from it (see _checkValidity())
+          next._keyFrame._invalidateWorldCache();
         }
-        keyFrame._tangentVector = Vector.multiply(Vector.subtract(next._translation(), prev._translation()), 0.5f);
-        keyFrame._tangentQuaternion = Quaternion.squadTangent(prev._rotation(), keyFrame._rotation(), next._rotation());
-      } else {
-        keyFrame._tangentVector = Vector.multiply(Vector.subtract(keyFrame._translation(), prev._translation()), 0.5f);
-        keyFrame._tangentQuaternion = Quaternion.squadTangent(prev._rotation(), keyFrame._rotation(), keyFrame._rotation());
       }
-      prev = keyFrame;
-      keyFrame = next;
+      if (prev._modified || keyFrame._modified || (next != null && next._modified)) {
+        if (next != null) {
+          keyFrame._tangentVector = Vector.multiply(Vector.subtract(next._translation(), prev._translation()), 0.5f);
+          keyFrame._tangentQuaternion = Quaternion.squadTangent(prev._rotation(), keyFrame._rotation(), next._rotation());
+        } else {
+          keyFrame._tangentVector = Vector.multiply(Vector.subtract(keyFrame._translation(), prev._translation()), 0.5f);
+          keyFrame._tangentQuaternion = Quaternion.squadTangent(prev._rotation(), keyFrame._rotation(), keyFrame._rotation());
+        }
+        // segments ending and starting at the keyframe
+        prev._segmentModified = true;
+        keyFrame._segmentModified = true;
+      }
+    }
+    for (int index = 0; index < size; index++) {
+      _list.get(index)._modified = false;
     }
     _valuesAreValid = true;
   }
 
   /**
-   * Internal use. Checks if any of the keyframes defining the path was recently modified.
+   * Internal use. Checks whether or not some of the keyframes defining the path were
+   * modified since their tangents were computed. Keyframes are notified of the
+   * modifications of their nodes (and of the node ancestors) as they occur (see
+   * {@link Node#_keyFrames}), so only the modified ones are visited.
    */
   protected void _checkValidity() {
-    boolean modified = false;
-    for (KeyFrame keyFrame : _list) {
-      if (keyFrame._keyFrame.lastUpdate() > _lastUpdate()) {
-        modified = true;
-        break;
-      }
-    }
-    if (modified) {
-      _lastUpdate = Graph._frameCount;
-      _valuesAreValid = false;
-      _pathIsValid = false;
-      _splineCacheIsValid = false;
+    if (_modifiedKeyFrames.isEmpty())
+      return;
+    // keyframes flagged while updating the tangents (see _updateModifiedKeyFrames())
+    // are flagged again, since their flags were then reset
+    for (int index = 0; index < _modifiedKeyFrames.size(); index++) {
+      _modifiedKeyFrames.get(index)._modified = true;
     }
+    _modifiedKeyFrames.clear();
+    _lastUpdate = Graph._frameCount;
+    _valuesAreValid = false;
+    _splineCacheIsValid = false;
   }
 }
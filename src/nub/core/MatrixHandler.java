@@ -13,6 +13,8 @@ package nub.core;
 
 import nub.primitives.Matrix;
 
+import java.util.Arrays;
+
 /**
  * The matrix handler specifies (and implements) various matrix operations needed by the
  * {@link Graph} to properly perform its geometry transformations.
@@ -27,6 +29,9 @@ import nub.primitives.Matrix;
  */
 public class MatrixHandler {
   protected Matrix _projection, _view, _model;
+  /**
+   * Initial depth of the matrix and projection stacks, which automatically grow on demand.
+   */
   public static int STACK_DEPTH = 32;
   public static String ERROR_PUSHMATRIX_OVERFLOW = "Too many calls to pushMatrix().";
   public static String ERROR_PUSHMATRIX_UNDERFLOW = "Too many calls to popMatrix(), and not enough to pushMatrix().";
@@ -171,16 +176,48 @@ public class MatrixHandler {
   }
 
   /**
-   * Push a copy of the {@link #model()} matrix onto the stack.
+   * Replaces the current {@link #model()} matrix with (a copy of) {@code matrix}.
+   * Calls {@link #_setUniforms()}.
+   *
+   * @see #applyMatrix(Matrix)
+   */
+  public void loadMatrix(Matrix matrix) {
+    if (_model == null) {
+      _model = new Matrix();
+    }
+    _model.set(matrix);
+    _setUniforms();
+  }
+
+  /**
+   * Push a copy of the {@link #model()} matrix onto the stack, which grows on demand.
    */
   public void pushMatrix() {
-    if (_matrixStackDepth == STACK_DEPTH) {
-      throw new RuntimeException(ERROR_PUSHMATRIX_OVERFLOW);
+    if (_matrixStackDepth == _matrixStack.length) {
+      _growMatrixStack();
     }
     _model.get(_matrixStack[_matrixStackDepth]);
     _matrixStackDepth++;
   }
 
+  /**
+   * Doubles the matrix stack capacity. Called by {@link #pushMatrix()} when the stack is full.
+   */
+  protected void _growMatrixStack() {
+    _matrixStack = _grow(_matrixStack);
+  }
+
+  /**
+   * Returns a copy of {@code stack} with twice its capacity.
+   */
+  protected static float[][] _grow(float[][] stack) {
+    float[][] result = Arrays.copyOf(stack, Math.max(1, 2 * stack.length));
+    for (int i = stack.length; i < result.length; i++) {
+      result[i] = new float[16];
+    }
+    return result;
+  }
+
   /**
    * Replace the current {@link #model()} matrix with the top of the stack.
    * Calls {@link #_setUniforms()}.
@@ -227,11 +264,11 @@ public class MatrixHandler {
   }
 
   /**
-   * Push a copy of the {@link #projection()} matrix onto the stack.
+   * Push a copy of the {@link #projection()} matrix onto the stack, which grows on demand.
    */
   public void pushProjection() {
-    if (_projectionStackDepth == STACK_DEPTH) {
-      throw new RuntimeException(ERROR_PUSHMATRIX_OVERFLOW);
+    if (_projectionStackDepth == _projectionStack.length) {
+      _projectionStack = _grow(_projectionStack);
     }
     _projection.get(_projectionStack[_projectionStackDepth]);
     _projectionStackDepth++;
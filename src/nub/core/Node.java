@@ -15,11 +15,15 @@ import nub.primitives.Matrix;
 import nub.primitives.Quaternion;
 import nub.primitives.Vector;
 
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
@@ -155,6 +159,52 @@ public class Node {
   protected Quaternion _orientation;
   protected Node _reference;
   protected long _lastUpdate;
+  // change propagation
+  // _generation is increased each time a node is modified and _version holds
+  // the _generation value of the last local change of the node
+  protected static long _generation;
+  protected static AtomicLong _stamps = new AtomicLong();
+  protected long _version;
+  // interpolator keyframes defined by the node or by any of its descendants, which are
+  // notified of the node modifications (see Interpolator._checkValidity())
+  protected List<Interpolator.KeyFrame> _keyFrames;
+  protected long _lastUpdateCache, _lastUpdateGeneration = -1;
+  // world transform cache
+  protected Vector _worldPosition;
+  protected Quaternion _worldOrientation;
+  protected float _worldMagnitude;
+  protected Matrix _worldMatrix, _view, _viewInverse;
+  protected boolean _worldMatrixIsValid, _viewIsValid, _viewInverseIsValid;
+  // _worldVersion holds the _version the cache was computed from, _worldStamp is
+  // a (globally unique) stamp taken from _stamps each time the cache is recomputed,
+  // _referenceStamp holds the
+  // reference _worldStamp the cache was computed from and _worldGeneration the
+  // last _generation the cache was found to be valid
+  protected long _worldVersion = -1, _worldStamp, _referenceStamp, _worldGeneration = -1;
+  // index in the Graph flattened traversal
+  protected int _traversalIndex = -1;
+  // bounding volume (defined in the node coordinate system)
+  protected static int _boundedNodes;
+  protected Vector _volumeCenter, _volumeExtents;
+  protected Quaternion _volumeOrientation;
+  protected boolean _volumeIsBall;
+  // world axis aligned bounds of the volume ({minX, minY, minZ, maxX, maxY, maxZ}) and
+  // the node _worldStamp they were computed from (-1 means dirty)
+  protected float[] _volumeBounds = new float[6];
+  protected long _volumeWorldStamp = -1;
+  // world axis aligned bounds of the subtree and the Graph refit pass they were last updated
+  protected float[] _subtreeBounds = new float[6];
+  protected boolean _subtreeIsBounded;
+  protected long _subtreeRefit = -1;
+  protected int _subtreeHint = -1;
+  // local space picking triangles and their axis aligned box (see setTriangles(float[]))
+  protected float[] _triangles;
+  protected Vector _trianglesCenter, _trianglesExtents;
+  // spatial index leaf and sync epochs (see Graph.spatialIndex())
+  protected int _leaf = -1;
+  protected long _indexTouch, _indexSync;
+  // temporal coherence caches, indexed by Graph._slot (see Graph.coherence)
+  protected Graph.Coherence[] _coherences;
 
   protected Interpolator _interpolator;
 
@@ -169,6 +219,12 @@ public class Node {
   // ID
   protected static int _counter;
   protected int _id;
+  // ids of garbage collected nodes are recycled, see _allocateId(Node)
+  protected IdReference _idReference;
+  protected static ReferenceQueue<Node> _collectedIds = new ReferenceQueue<Node>();
+  protected static IdReference[] _idReferences = new IdReference[1024];
+  protected static int[] _freeIds = new int[64];
+  protected static int _freeIdCount;
 
   // tree
   protected List<Node> _children;
@@ -386,10 +442,7 @@ public class Node {
     setMagnitude(magnitude);
     _interpolator = new Interpolator(this);
     enablePicking(CAMERA | AXES | HUD | SHAPE | BOUNDS | BULLSEYE | TORUS | FILTER | BONE);
-    _id = ++_counter;
-    // unlikely but theoretically possible
-    if (_id == 16777216)
-      throw new RuntimeException("Maximum node instances reached. Exiting now!");
+    _id = _allocateId(this);
     _bullsEyeSize = 30;
     _bullsEyeShape = BullsEyeShape.SQUARE;
     tagging = true;
@@ -607,13 +660,63 @@ public class Node {
   // colorID
 
   /**
-   * Returns the unique sequential node id assigned at instantiation time.
+   * Returns the node id assigned at instantiation time, which is unique among the living
+   * nodes: the ids of garbage collected nodes (which are necessarily detached) are
+   * recycled by the nodes instantiated afterwards.
    * Used by {@link #colorID()} and {@link Graph#_displayBackHint(Node)}.
    */
   public int id() {
     return _id;
   }
 
+  /**
+   * Internal use. A weak reference to a node which keeps its {@link #id()} so that the id
+   * may be recycled once the node is garbage collected.
+   */
+  protected static class IdReference extends WeakReference<Node> {
+    int _id;
+    // number of graphs holding a behavior keyed by the id, see Graph.addBehavior(Node, BiConsumer)
+    int _behaviors;
+
+    IdReference(Node node, int id) {
+      super(node, _collectedIds);
+      _id = id;
+    }
+  }
+
+  /**
+   * Internal use. Returns the {@link #id()} of the {@code node} being instantiated: the most
+   * recently recycled id of a garbage collected node if any, or a new sequential id
+   * otherwise. Ids still referenced by a graph behavior (see
+   * {@link Graph#addBehavior(Node, BiConsumer)}) are never recycled.
+   */
+  protected static synchronized int _allocateId(Node node) {
+    IdReference reference;
+    while ((reference = (IdReference) _collectedIds.poll()) != null) {
+      _idReferences[reference._id] = null;
+      if (reference._behaviors == 0) {
+        if (_freeIdCount == _freeIds.length) {
+          _freeIds = Arrays.copyOf(_freeIds, 2 * _freeIdCount);
+        }
+        _freeIds[_freeIdCount++] = reference._id;
+      }
+    }
+    int id;
+    if (_freeIdCount > 0) {
+      id = _freeIds[--_freeIdCount];
+    } else {
+      // unlikely but theoretically possible
+      if (_counter == Integer.MAX_VALUE)
+        throw new RuntimeException("Maximum node instances reached. Exiting now!");
+      id = ++_counter;
+    }
+    if (id >= _idReferences.length) {
+      _idReferences = Arrays.copyOf(_idReferences, Math.max(id + 1, 2 * _idReferences.length));
+    }
+    node._idReference = _idReferences[id] = new IdReference(node, id);
+    return id;
+  }
+
   /**
    * Uniquely identifies the node. Also the color to be used for picking with a color buffer.
    * See: http://stackoverflow.com/questions/2262100/rgb-int-to-rgb-python
@@ -653,11 +756,356 @@ public class Node {
   }
 
   /**
-   * Convert int {@code id} to color.
+   * Convert int {@code id} to alpha. Use it in conjunction with
+   * {@link #redID(int)}, {@link #greenID(int)} and {@link #blueID(int)}.
+   * <p>
+   * The alpha channel holds the {@code id} high byte (as {@code 255 - (id >>> 24)}), so
+   * that it's always opaque for ids below {@code 2^24} (i.e., when the id fits into
+   * the RGB channels) while higher ids are still distinguished from each other.
+   *
+   * @see #colorID(int)
+   */
+  public static float alphaID(int id) {
+    return (float) (255 - (id >>> 24)) / 255.f;
+  }
+
+  /**
+   * Convert int {@code id} to (ARGB) color.
    * See: http://stackoverflow.com/questions/2262100/rgb-int-to-rgb-python
+   *
+   * @see #alphaID(int)
    */
   public static int colorID(int id) {
-    return (255 << 24) | ((id & 255) << 16) | (((id >> 8) & 255) << 8) | (id >> 16) & 255;
+    return ((255 - (id >>> 24)) << 24) | ((id & 255) << 16) | (((id >> 8) & 255) << 8) | (id >> 16) & 255;
+  }
+
+  // BOUNDING VOLUMES
+
+  /**
+   * Sets the node bounding volume as the ball of the given {@code radius} and {@code center},
+   * defined in the node coordinate system.
+   * <p>
+   * Bounding volumes are used by the {@link Graph#render()} algorithm to perform hierarchical
+   * view frustum culling (see {@link Graph#frustumCulling}): the world bounds of a subtree
+   * are (lazily) refit from those of its nodes, so that only subtrees whose nodes are all
+   * bounded (nodes having an empty {@link #hint()} are bounded by default) are culled.
+   *
+   * @see #setBoundingBox(Vector, Vector)
+   * @see #setBoundingBox(Vector, Vector, Quaternion)
+   * @see #resetBoundingVolume()
+   */
+  public void setBoundingBall(Vector center, float radius) {
+    if (radius < 0) {
+      System.out.println("Warning: bounding ball radius should be non-negative. Nothing done!");
+      return;
+    }
+    _setBoundingVolume(center, new Vector(radius, radius, radius), null, true);
+  }
+
+  /**
+   * Sets the node bounding volume as the box defined by corners {@code corner1} and
+   * {@code corner2}, which is axis aligned in the node coordinate system.
+   *
+   * @see #setBoundingBall(Vector, float)
+   * @see #setBoundingBox(Vector, Vector, Quaternion)
+   * @see #resetBoundingVolume()
+   */
+  public void setBoundingBox(Vector corner1, Vector corner2) {
+    Vector center = Vector.multiply(Vector.add(corner1, corner2), 0.5f);
+    Vector extents = Vector.multiply(Vector.subtract(corner2, corner1), 0.5f);
+    extents.set(Math.abs(extents.x()), Math.abs(extents.y()), Math.abs(extents.z()));
+    _setBoundingVolume(center, extents, null, false);
+  }
+
+  /**
+   * Sets the node bounding volume as the box having the given {@code center}, half
+   * {@code extents} and {@code orientation}, all defined in the node coordinate system.
+   *
+   * @see #setBoundingBall(Vector, float)
+   * @see #setBoundingBox(Vector, Vector)
+   * @see #resetBoundingVolume()
+   */
+  public void setBoundingBox(Vector center, Vector extents, Quaternion orientation) {
+    Vector halfExtents = new Vector(Math.abs(extents.x()), Math.abs(extents.y()), Math.abs(extents.z()));
+    _setBoundingVolume(center.copy(), halfExtents, orientation == null ? null : orientation.copy(), false);
+  }
+
+  /**
+   * Removes the node bounding volume.
+   *
+   * @see #hasBoundingVolume()
+   */
+  public void resetBoundingVolume() {
+    if (_volumeCenter != null) {
+      _boundedNodes--;
+    }
+    _volumeCenter = null;
+    _volumeExtents = null;
+    _volumeOrientation = null;
+    _volumeIsBall = false;
+    _volumeWorldStamp = -1;
+    _touch();
+  }
+
+  /**
+   * Returns whether or not the node has a bounding volume.
+   *
+   * @see #setBoundingBall(Vector, float)
+   * @see #setBoundingBox(Vector, Vector)
+   * @see #setBoundingBox(Vector, Vector, Quaternion)
+   */
+  public boolean hasBoundingVolume() {
+    return _volumeCenter != null;
+  }
+
+  protected void _setBoundingVolume(Vector center, Vector extents, Quaternion orientation, boolean ball) {
+    if (_volumeCenter == null) {
+      _boundedNodes++;
+    }
+    _volumeCenter = center.copy();
+    _volumeExtents = extents;
+    _volumeOrientation = orientation;
+    _volumeIsBall = ball;
+    _volumeWorldStamp = -1;
+    _touch();
+  }
+
+  /**
+   * Sets the {@code triangles} (nine floats, i.e., three {@code x, y, z} vertices, per
+   * triangle defined in the node coordinate system) the node is ray-picked against when
+   * {@link Graph#geometricPicking} is enabled. Pass {@code null} to pick the node against
+   * its bounding volume only.
+   * <p>
+   * Note that the triangles don't set the node bounding volume, and hence they're not used
+   * for {@link Graph#frustumCulling}. If the node has no bounding volume, it's picked
+   * against the triangles only.
+   *
+   * @see #triangles()
+   * @see #setBoundingBox(Vector, Vector)
+   */
+  public void setTriangles(float[] triangles) {
+    if (triangles != null && (triangles.length == 0 || triangles.length % 9 != 0)) {
+      System.out.println("Warning: triangles should hold nine floats per triangle. Nothing done!");
+      return;
+    }
+    _triangles = triangles;
+    _trianglesCenter = null;
+    _trianglesExtents = null;
+    if (triangles != null) {
+      Vector min = new Vector(triangles[0], triangles[1], triangles[2]);
+      Vector max = min.copy();
+      for (int i = 3; i < triangles.length; i += 3) {
+        min.set(Math.min(min.x(), triangles[i]), Math.min(min.y(), triangles[i + 1]), Math.min(min.z(), triangles[i + 2]));
+        max.set(Math.max(max.x(), triangles[i]), Math.max(max.y(), triangles[i + 1]), Math.max(max.z(), triangles[i + 2]));
+      }
+      _trianglesCenter = Vector.multiply(Vector.add(min, max), 0.5f);
+      _trianglesExtents = Vector.multiply(Vector.subtract(max, min), 0.5f);
+    }
+    _touch();
+  }
+
+  /**
+   * Returns the node picking triangles.
+   *
+   * @see #setTriangles(float[])
+   */
+  public float[] triangles() {
+    return _triangles;
+  }
+
+  /**
+   * Internal use. Casts the ray defined by its world {@code origin} and {@code direction}
+   * against the node bounding volume (and then its {@link #triangles()}, if any) and
+   * returns the ray parameter of the nearest hit, or {@code -1} if the ray misses the node
+   * (or if it has neither a bounding volume nor triangles). The axis aligned box of the
+   * triangles is used instead of the bounding volume when the node has none.
+   * <p>
+   * The ray is expressed in the node (and then in the bounding volume) coordinate system,
+   * which preserves the ray parameter since the transformations are affine.
+   */
+  protected float _cast(Vector origin, Vector direction) {
+    if (_volumeCenter == null && _triangles == null)
+      return -1;
+    _updateWorldCache();
+    Vector o = _worldOrientation.inverseRotate(Vector.subtract(origin, _worldPosition));
+    o.divide(_worldMagnitude);
+    Vector d = _worldOrientation.inverseRotate(direction);
+    d.divide(_worldMagnitude);
+    boolean bounded = _volumeCenter != null;
+    Vector oc = Vector.subtract(o, bounded ? _volumeCenter : _trianglesCenter);
+    float t;
+    if (bounded && _volumeIsBall) {
+      float radius = _volumeExtents.x();
+      float c = Vector.dot(oc, oc) - radius * radius;
+      if (c <= 0) {
+        t = 0;
+      } else {
+        float a = Vector.dot(d, d);
+        float b = Vector.dot(oc, d);
+        float discriminant = b * b - a * c;
+        if (discriminant < 0 || b > 0)
+          return -1;
+        t = (-b - (float) Math.sqrt(discriminant)) / a;
+      }
+    } else {
+      Vector od = oc, dd = d;
+      if (bounded && _volumeOrientation != null) {
+        od = _volumeOrientation.inverseRotate(oc);
+        dd = _volumeOrientation.inverseRotate(d);
+      }
+      float[] e = bounded ? _volumeExtents._vector : _trianglesExtents._vector;
+      t = SpatialIndex._entry(new float[]{-e[0], -e[1], -e[2], e[0], e[1], e[2]}, 0, od._vector, dd._vector);
+    }
+    if (t < 0 || _triangles == null)
+      return t;
+    return _castTriangles(o._vector, d._vector);
+  }
+
+  /**
+   * Returns the ray parameter of the nearest (two-sided) triangle hit by the ray defined by
+   * its local {@code origin} and {@code direction}, or {@code -1} if the ray misses them all.
+   * Uses the Moller-Trumbore algorithm.
+   */
+  protected float _castTriangles(float[] origin, float[] direction) {
+    float result = Float.POSITIVE_INFINITY;
+    float[] v = _triangles;
+    for (int i = 0; i < v.length; i += 9) {
+      float e1x = v[i + 3] - v[i], e1y = v[i + 4] - v[i + 1], e1z = v[i + 5] - v[i + 2];
+      float e2x = v[i + 6] - v[i], e2y = v[i + 7] - v[i + 1], e2z = v[i + 8] - v[i + 2];
+      // p = direction x e2
+      float px = direction[1] * e2z - direction[2] * e2y;
+      float py = direction[2] * e2x - direction[0] * e2z;
+      float pz = direction[0] * e2y - direction[1] * e2x;
+      float determinant = e1x * px + e1y * py + e1z * pz;
+      if (determinant == 0)
+        continue;
+      float inverse = 1 / determinant;
+      float sx = origin[0] - v[i], sy = origin[1] - v[i + 1], sz = origin[2] - v[i + 2];
+      float u = (sx * px + sy * py + sz * pz) * inverse;
+      if (u < 0 || u > 1)
+        continue;
+      // q = s x e1
+      float qx = sy * e1z - sz * e1y;
+      float qy = sz * e1x - sx * e1z;
+      float qz = sx * e1y - sy * e1x;
+      float w = (direction[0] * qx + direction[1] * qy + direction[2] * qz) * inverse;
+      if (w < 0 || u + w > 1)
+        continue;
+      float t = (e2x * qx + e2y * qy + e2z * qz) * inverse;
+      if (t >= 0 && t < result)
+        result = t;
+    }
+    return result == Float.POSITIVE_INFINITY ? -1 : result;
+  }
+
+  /**
+   * Internal use. Updates the world axis aligned bounds of the node bounding volume from
+   * the node world transformation.
+   */
+  protected void _updateVolumeBounds() {
+    _volumeBounds(_volumeBounds);
+  }
+
+  /**
+   * Internal use. Writes the world axis aligned bounds of the node bounding volume
+   * into {@code bounds}. The world transformation cache should be up to date.
+   */
+  protected void _volumeBounds(float[] bounds) {
+    _volumeBounds(_volumeCenter, _volumeExtents, _volumeOrientation, _volumeIsBall, bounds);
+  }
+
+  /**
+   * Internal use. Writes the world axis aligned bounds of the volume defined by its local
+   * {@code center}, half {@code extents} and {@code orientation} (or radius, when
+   * {@code ball} is {@code true}) into {@code bounds}. The world transformation cache
+   * should be up to date.
+   */
+  protected void _volumeBounds(Vector volumeCenter, Vector extents, Quaternion volumeOrientation, boolean ball, float[] bounds) {
+    Vector center = worldLocation(volumeCenter);
+    float[] e = extents._vector;
+    float[] h = new float[3];
+    if (ball) {
+      float radius = e[0] * _worldMagnitude;
+      h[0] = h[1] = h[2] = radius;
+    } else {
+      Quaternion orientation = volumeOrientation == null ? _worldOrientation : Quaternion.compose(_worldOrientation, volumeOrientation);
+      // the half size of the box along a world axis is the sum of the projections
+      // of its (scaled) half extents onto that axis
+      float[] r = orientation.matrix()._matrix;
+      for (int i = 0; i < 3; i++) {
+        h[i] = (Math.abs(r[i]) * e[0] + Math.abs(r[4 + i]) * e[1] + Math.abs(r[8 + i]) * e[2]) * _worldMagnitude;
+      }
+    }
+    for (int i = 0; i < 3; i++) {
+      bounds[i] = center._vector[i] - h[i];
+      bounds[3 + i] = center._vector[i] + h[i];
+    }
+  }
+
+  /**
+   * Internal use. Refits the world axis aligned bounds of the node subtree if the node
+   * bounding volume or the subtree bounds of any of its children changed in the current
+   * refit {@code pass} (or if {@code force} is {@code true}). Called by the
+   * {@link Graph} from the leaves up.
+   */
+  protected void _refitSubtreeBounds(long pass, boolean force) {
+    boolean changed = force;
+    if (_volumeCenter != null) {
+      _updateWorldCache();
+      if (_volumeWorldStamp != _worldStamp) {
+        _updateVolumeBounds();
+        _volumeWorldStamp = _worldStamp;
+        changed = true;
+      }
+    } else if (_volumeWorldStamp != 0) {
+      // the volume was reset (0 flags the unbounded state as already refit)
+      _volumeWorldStamp = 0;
+      changed = true;
+    }
+    if (_subtreeHint != hint()) {
+      // nodes having no hint are bounded by default
+      _subtreeHint = hint();
+      changed = true;
+    }
+    if (!changed) {
+      for (Node child : _children) {
+        if (child._subtreeRefit == pass) {
+          changed = true;
+          break;
+        }
+      }
+    }
+    if (!changed) {
+      return;
+    }
+    boolean bounded = _volumeCenter != null || hint() == 0;
+    float[] bounds = _subtreeBounds;
+    for (int i = 0; i < 3; i++) {
+      bounds[i] = Float.POSITIVE_INFINITY;
+      bounds[3 + i] = Float.NEGATIVE_INFINITY;
+    }
+    if (_volumeCenter != null) {
+      _merge(bounds, _volumeBounds);
+    }
+    for (Node child : _children) {
+      if (child._subtreeIsBounded) {
+        _merge(bounds, child._subtreeBounds);
+      } else {
+        bounded = false;
+      }
+    }
+    _subtreeIsBounded = bounded;
+    _subtreeRefit = pass;
+  }
+
+  /**
+   * Merges the {@code source} axis aligned bounds into {@code target}.
+   */
+  protected static void _merge(float[] target, float[] source) {
+    for (int i = 0; i < 3; i++) {
+      target[i] = Math.min(target[i], source[i]);
+      target[3 + i] = Math.max(target[3 + i], source[3 + i]);
+    }
   }
 
   // MODIFIED
@@ -665,19 +1113,104 @@ public class Node {
   /**
    * @return the last frame this node affine transformation ({@link #worldPosition()},
    * {@link #worldOrientation()} or {@link #worldMagnitude()}) or {@link #reference()} was updated.
+   * <p>
+   * The result is lazily computed from the local updates of the node and its ancestors, and
+   * it is cached until a node is modified again.
    */
   public long lastUpdate() {
-    return _lastUpdate;
+    if (_lastUpdateGeneration != _generation) {
+      long lastUpdate = _lastUpdate;
+      Node node = _reference;
+      while (node != null) {
+        if (node._lastUpdateGeneration == _generation) {
+          lastUpdate = Math.max(lastUpdate, node._lastUpdateCache);
+          break;
+        }
+        lastUpdate = Math.max(lastUpdate, node._lastUpdate);
+        node = node._reference;
+      }
+      _lastUpdateCache = lastUpdate;
+      _lastUpdateGeneration = _generation;
+    }
+    return _lastUpdateCache;
   }
 
   /**
    * Internal use. Automatically call by all methods which change the node state.
+   * Only the local node version is updated, the node descendants being lazily
+   * updated when queried (see {@link #lastUpdate()}).
    */
   protected void _modified() {
     _lastUpdate = Graph._frameCount;
-    if (_children != null)
-      for (Node child : _children)
-        child._modified();
+    _invalidateWorldCache();
+  }
+
+  /**
+   * Internal use. Invalidates the world transform cache of the node (and hence that of its
+   * descendants) without updating the {@link #lastUpdate()}.
+   *
+   * @see #_updateWorldCache()
+   */
+  protected void _invalidateWorldCache() {
+    _version = ++_generation;
+    _touch();
+    if (_keyFrames != null) {
+      for (int index = 0; index < _keyFrames.size(); index++) {
+        _keyFrames.get(index)._modify();
+      }
+    }
+  }
+
+  /**
+   * Internal use. Records the node (together with its subtree) as changed in the
+   * {@link Graph#spatialIndex()}, if it has been created.
+   */
+  protected void _touch() {
+    if (Graph._spatialIndex != null)
+      Graph._spatialIndex._touch(this);
+  }
+
+  /**
+   * Internal use. Tells whether or not the world transform cache is up-to-date, by comparing
+   * the local and ancestor versions against those the cache was computed from. The result is
+   * cached until a node is modified again.
+   */
+  protected boolean _isWorldCacheValid() {
+    if (_worldGeneration == _generation)
+      return true;
+    if (_worldVersion != _version)
+      return false;
+    if (_reference != null && (!_reference._isWorldCacheValid() || _reference._worldStamp != _referenceStamp))
+      return false;
+    _worldGeneration = _generation;
+    return true;
+  }
+
+  /**
+   * Internal use. Lazily updates the {@link #worldPosition()}, {@link #worldOrientation()} and
+   * {@link #worldMagnitude()} cache from that of the {@link #reference()}.
+   */
+  protected void _updateWorldCache() {
+    if (_isWorldCacheValid())
+      return;
+    if (_reference == null) {
+      _worldMagnitude = _magnitude;
+      _worldOrientation = _orientation.copy();
+      _worldPosition = _position.copy();
+    }
+    else {
+      _reference._updateWorldCache();
+      _worldMagnitude = _reference._worldMagnitude * _magnitude;
+      _worldOrientation = Quaternion.compose(_reference._worldOrientation, _orientation);
+      _worldPosition = Vector.add(_reference._worldOrientation.rotate(Vector.multiply(_position, _reference._worldMagnitude)), _reference._worldPosition);
+      _referenceStamp = _reference._worldStamp;
+    }
+    _worldStamp = _stamps.incrementAndGet();
+    _worldVersion = _version;
+    _worldGeneration = _generation;
+    _worldMatrixIsValid = false;
+    _viewIsValid = false;
+    _viewInverseIsValid = false;
   }
 
   // reference
@@ -854,8 +1387,23 @@ public class Node {
         }
       }
     }
-    // 3. actually assign reference
+    // 3. actually assign reference (moving the keyframe registrations, see _keyFrames)
+    if (_keyFrames != null) {
+      for (Node ancestor = _reference; ancestor != null; ancestor = ancestor._reference) {
+        for (Interpolator.KeyFrame keyFrame : _keyFrames) {
+          ancestor._keyFrames.remove(keyFrame);
+        }
+      }
+    }
     _reference = node;
+    if (_keyFrames != null && !_keyFrames.isEmpty()) {
+      for (Node ancestor = _reference; ancestor != null; ancestor = ancestor._reference) {
+        if (ancestor._keyFrames == null) {
+          ancestor._keyFrames = new ArrayList<Interpolator.KeyFrame>();
+        }
+        ancestor._keyFrames.addAll(_keyFrames);
+      }
+    }
     // 4. restore cache prev state (step 2. above)
     if (needs_cache) {
       this.setWorldPosition(position);
@@ -1040,6 +1588,8 @@ public class Node {
       return false;
     if (_hasChild(node))
       return false;
+    Graph._traversalIsValid = false;
+    node._touch();
     return _children.add(node);
   }
 
@@ -1052,6 +1602,8 @@ public class Node {
     while (it.hasNext()) {
       if (it.next() == node) {
         it.remove();
+        Graph._traversalIsValid = false;
+        node._touch();
         result = true;
         break;
       }
@@ -1242,6 +1794,25 @@ public class Node {
     }
   }
 
+  /**
+   * Internal use. Same as {@code setPosition(new Vector(x, y, z))}, but if there's no
+   * {@link #translationFilter()} the {@link #position()} is updated in place (just as
+   * {@link #translate(Vector)} does), so that no object is allocated. Used by the
+   * {@link Interpolator}.
+   */
+  protected void _setPosition(float x, float y, float z) {
+    if (_translationFilter != null) {
+      setPosition(new Vector(x, y, z));
+    }
+    else {
+      this.cachePosition = _position;
+      _position._vector[0] = x;
+      _position._vector[1] = y;
+      _position._vector[2] = z;
+      _modified();
+    }
+  }
+
   /**
    * Same as {@link #setPosition(Vector)}, but with {@code float} parameters.
    */
@@ -1425,7 +1996,8 @@ public class Node {
    * @see #position()
    */
   public Vector worldPosition() {
-    return worldLocation(new Vector());
+    _updateWorldCache();
+    return _worldPosition.copy();
   }
 
   /**
@@ -1508,6 +2080,23 @@ public class Node {
     }
   }
 
+  /**
+   * Internal use. Same as {@code setOrientation(orientation.copy())}, but if there's no
+   * {@link #rotationFilter()} the {@link #orientation()} is updated in place (just as
+   * {@link #rotate(Quaternion)} does), so that no object is allocated. Used by the
+   * {@link Interpolator}.
+   */
+  protected void _setOrientation(Quaternion orientation) {
+    if (_rotationFilter != null) {
+      setOrientation(orientation.copy());
+    }
+    else {
+      this.cacheOrientation = _orientation;
+      System.arraycopy(orientation._quaternion, 0, _orientation._quaternion, 0, 4);
+      _modified();
+    }
+  }
+
   /**
    * Same as {@code rotate(new Quaternion(axis, angle), inertia)}.
    *
@@ -1768,7 +2357,8 @@ public class Node {
    * @see #orientation()
    */
   public Quaternion worldOrientation() {
-    return worldDisplacement(new Quaternion());
+    _updateWorldCache();
+    return _worldOrientation.copy();
   }
 
   /**
@@ -1973,7 +2563,8 @@ public class Node {
    * @see Graph#projection()
    */
   public float worldMagnitude() {
-    return reference() != null ? reference().worldMagnitude() * magnitude() : magnitude();
+    _updateWorldCache();
+    return _worldMagnitude;
   }
 
   /**
@@ -2318,24 +2909,35 @@ public class Node {
    * @see #viewInverse()
    */
   public Matrix matrix() {
-    Matrix matrix = orientation().matrix();
+    return _matrix(position(), orientation(), magnitude());
+  }
+
+  /**
+   * Returns the transformation matrix defined by {@code position}, {@code orientation} and
+   * {@code magnitude}.
+   *
+   * @see #matrix()
+   * @see #worldMatrix()
+   */
+  protected static Matrix _matrix(Vector position, Quaternion orientation, float magnitude) {
+    Matrix matrix = orientation.matrix();
 
-    matrix._matrix[12] = position()._vector[0];
-    matrix._matrix[13] = position()._vector[1];
-    matrix._matrix[14] = position()._vector[2];
+    matrix._matrix[12] = position._vector[0];
+    matrix._matrix[13] = position._vector[1];
+    matrix._matrix[14] = position._vector[2];
 
-    if (magnitude() != 1) {
-      matrix.setM00(matrix.m00() * magnitude());
-      matrix.setM10(matrix.m10() * magnitude());
-      matrix.setM20(matrix.m20() * magnitude());
+    if (magnitude != 1) {
+      matrix.setM00(matrix.m00() * magnitude);
+      matrix.setM10(matrix.m10() * magnitude);
+      matrix.setM20(matrix.m20() * magnitude);
 
-      matrix.setM01(matrix.m01() * magnitude());
-      matrix.setM11(matrix.m11() * magnitude());
-      matrix.setM21(matrix.m21() * magnitude());
+      matrix.setM01(matrix.m01() * magnitude);
+      matrix.setM11(matrix.m11() * magnitude);
+      matrix.setM21(matrix.m21() * magnitude);
 
-      matrix.setM02(matrix.m02() * magnitude());
-      matrix.setM12(matrix.m12() * magnitude());
-      matrix.setM22(matrix.m22() * magnitude());
+      matrix.setM02(matrix.m02() * magnitude);
+      matrix.setM12(matrix.m12() * magnitude);
+      matrix.setM22(matrix.m22() * magnitude);
     }
 
     return matrix;
@@ -2359,10 +2961,19 @@ public class Node {
    * @see #viewInverse()
    */
   public Matrix worldMatrix() {
-    if (reference() != null)
-      return new Node(null, worldPosition(), worldOrientation(), worldMagnitude(), false).matrix();
-    else
-      return matrix();
+    return _worldMatrix().copy();
+  }
+
+  /**
+   * Internal use. Returns the (cached) {@link #worldMatrix()} without copying it.
+   */
+  protected Matrix _worldMatrix() {
+    _updateWorldCache();
+    if (!_worldMatrixIsValid) {
+      _worldMatrix = _matrix(_worldPosition, _worldOrientation, _worldMagnitude);
+      _worldMatrixIsValid = true;
+    }
+    return _worldMatrix;
   }
 
   /**
@@ -2381,7 +2992,12 @@ public class Node {
    * @see #set(Node)
    */
   public Matrix view() {
-    return Matrix.view(worldPosition(), worldOrientation());
+    _updateWorldCache();
+    if (!_viewIsValid) {
+      _view = Matrix.view(_worldPosition, _worldOrientation);
+      _viewIsValid = true;
+    }
+    return _view.copy();
   }
 
   /**
@@ -2396,7 +3012,12 @@ public class Node {
    * @see #set(Node)
    */
   public Matrix viewInverse() {
-    return new Node(null, worldPosition(), worldOrientation(), 1, false).matrix();
+    _updateWorldCache();
+    if (!_viewInverseIsValid) {
+      _viewInverse = _matrix(_worldPosition, _worldOrientation, 1);
+      _viewInverseIsValid = true;
+    }
+    return _viewInverse.copy();
   }
 
   /**
@@ -2668,13 +3289,8 @@ public class Node {
    * @see #displacement(Quaternion, Node)
    */
   public Quaternion worldDisplacement(Quaternion quaternion) {
-    Node node = this;
-    Quaternion result = quaternion;
-    while (node != null) {
-      result = node.referenceDisplacement(result);
-      node = node.reference();
-    }
-    return result;
+    _updateWorldCache();
+    return Quaternion.compose(_worldOrientation, quaternion);
   }
 
   /**
@@ -2744,13 +3360,8 @@ public class Node {
    * @see #displacement(Vector, Node)
    */
   public Vector worldDisplacement(Vector vector) {
-    Node node = this;
-    Vector result = vector;
-    while (node != null) {
-      result = node.referenceDisplacement(result);
-      node = node.reference();
-    }
-    return result;
+    _updateWorldCache();
+    return _worldOrientation.rotate(Vector.multiply(vector, _worldMagnitude));
   }
 
   /**
@@ -2834,13 +3445,8 @@ public class Node {
    * @see #location(Vector, Node)
    */
   public Vector worldLocation(Vector vector) {
-    Node node = this;
-    Vector result = vector;
-    while (node != null) {
-      result = node.referenceLocation(result);
-      node = node.reference();
-    }
-    return result;
+    _updateWorldCache();
+    return Vector.add(_worldOrientation.rotate(Vector.multiply(vector, _worldMagnitude)), _worldPosition);
   }
 
   /**
@@ -0,0 +1,657 @@
+/***************************************************************************************
+ * nub
+ * Copyright (c) 2019-2021 Universidad Nacional de Colombia
+ * @author Jean Pierre Charalambos, https://github.com/VisualComputing
+ *
+ * All rights reserved. A simple, expressive, language-agnostic, and extensible visual
+ * computing library, featuring interaction, visualization and animation frameworks and
+ * supporting advanced (onscreen/offscreen) (real/non-real time) rendering techniques.
+ * Released under the terms of the GPLv3, refer to: http://www.gnu.org/licenses/gpl.html
+ ***************************************************************************************/
+
+package nub.core;
+
+import nub.primitives.Vector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * A spatial index of the attached nodes, implemented as a dynamic bounding volume
+ * hierarchy (an axis aligned bounding box tree balanced with tree rotations).
+ * <p>
+ * Each attached node is a leaf of the tree, bounded by the world axis aligned box of its
+ * bounding volume (see {@link Node#setBoundingBall(Vector, float)} and
+ * {@link Node#setBoundingBox(Vector, Vector)}), by that of its picking triangles (see
+ * {@link Node#setTriangles(float[])}) if it has none, or else by its world position.
+ * Leaves are stored enlarged by {@link #margin}, so that small node motions don't
+ * require re-inserting them.
+ * <p>
+ * The index is obtained with {@link Graph#spatialIndex()} and it's kept in sync with the
+ * node transformations, bounding volumes and the tree topology: nodes changes are
+ * recorded as they occur and the affected leaves are refit (lazily) before the next query
+ * (or explicitly with {@link #update()}). Queries comprise box and ball overlap
+ * ({@link #query(Vector, Vector)} and {@link #query(Vector, float)}), frustum
+ * ({@link #query(Graph)}), k-nearest ({@link #nearest(Vector, int)}) and ray-cast
+ * ({@link #cast(Vector, Vector, Predicate)}).
+ * <p>
+ * Note that the index isn't thread-safe.
+ */
+public class SpatialIndex {
+  // tree nodes: the fat box of both inner nodes and leaves, and the tight box of the leaves
+  // (min x, y, z, max x, y, z)
+  protected float[] _fat, _tight;
+  // free tree nodes are linked through _child1
+  protected int[] _parent, _child1, _child2, _height;
+  protected Node[] _nodes;
+  protected int _root = -1;
+  protected int _free = -1;
+  protected int _leaves;
+  /**
+   * Distance (in world units) the leaves boxes are enlarged by. Default is {@code 1}.
+   */
+  public float margin = 1;
+  // changed nodes since the last update
+  protected ArrayList<Node> _dirty = new ArrayList<Node>();
+  protected long _epoch = 1;
+  protected ArrayList<Node> _walk = new ArrayList<Node>();
+  protected float[] _bounds = new float[6];
+  protected int[] _stack = new int[64];
+  protected int _top;
+  // min heap used by the best-first queries
+  protected float[] _heapKeys = new float[64];
+  protected int[] _heapItems = new int[64];
+  protected int _heapSize;
+
+  /**
+   * Use {@link Graph#spatialIndex()} to get the index.
+   */
+  protected SpatialIndex() {
+    _grow(16);
+  }
+
+  /**
+   * Returns the number of indexed nodes.
+   */
+  public int size() {
+    update();
+    return _leaves;
+  }
+
+  /**
+   * Returns the height of the tree, i.e., {@code 0} if the index has a single node and
+   * {@code -1} if it is empty.
+   */
+  public int height() {
+    update();
+    return _root == -1 ? -1 : _height[_root];
+  }
+
+  /**
+   * Refits the leaves of the nodes changed since the last update. Called automatically
+   * by all queries.
+   */
+  public void update() {
+    if (_dirty.isEmpty())
+      return;
+    for (int i = 0; i < _dirty.size(); i++) {
+      _sync(_dirty.get(i));
+    }
+    _dirty.clear();
+    _epoch++;
+  }
+
+  /**
+   * Returns the nodes whose bounds overlap the axis aligned box defined by
+   * {@code corner1} and {@code corner2}.
+   */
+  public List<Node> query(Vector corner1, Vector corner2) {
+    update();
+    List<Node> result = new ArrayList<Node>();
+    float minX = Math.min(corner1.x(), corner2.x()), minY = Math.min(corner1.y(), corner2.y()), minZ = Math.min(corner1.z(), corner2.z());
+    float maxX = Math.max(corner1.x(), corner2.x()), maxY = Math.max(corner1.y(), corner2.y()), maxZ = Math.max(corner1.z(), corner2.z());
+    _top = 0;
+    _push(_root);
+    while (_top > 0) {
+      int index = _stack[--_top];
+      boolean leaf = _child1[index] == -1;
+      float[] box = leaf ? _tight : _fat;
+      int i = 6 * index;
+      if (box[i] > maxX || box[i + 1] > maxY || box[i + 2] > maxZ || box[i + 3] < minX || box[i + 4] < minY || box[i + 5] < minZ)
+        continue;
+      if (leaf) {
+        result.add(_nodes[index]);
+      } else {
+        _push(_child1[index]);
+        _push(_child2[index]);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the nodes whose bounds overlap the ball of the given {@code center} and
+   * {@code radius}.
+   */
+  public List<Node> query(Vector center, float radius) {
+    update();
+    List<Node> result = new ArrayList<Node>();
+    float squaredRadius = radius * radius;
+    _top = 0;
+    _push(_root);
+    while (_top > 0) {
+      int index = _stack[--_top];
+      boolean leaf = _child1[index] == -1;
+      if (_squaredDistance(leaf ? _tight : _fat, index, center.x(), center.y(), center.z()) > squaredRadius)
+        continue;
+      if (leaf) {
+        result.add(_nodes[index]);
+      } else {
+        _push(_child1[index]);
+        _push(_child2[index]);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the nodes whose bounds are visible or semi-visible from the {@code graph}
+   * eye (see {@link Graph#boxVisibility(Vector, Vector)}). Fully visible subtrees of the
+   * index are collected without further tests.
+   */
+  public List<Node> query(Graph graph) {
+    update();
+    List<Node> result = new ArrayList<Node>();
+    if (_root == -1)
+      return result;
+    graph._refreshBounds();
+    _top = 0;
+    _push(_root);
+    while (_top > 0) {
+      int index = _stack[--_top];
+      boolean leaf = _child1[index] == -1;
+      float[] box = leaf ? _tight : _fat;
+      int i = 6 * index;
+      int visibility = graph._boxTest(null, box[i], box[i + 1], box[i + 2], box[i + 3], box[i + 4], box[i + 5], 0) & 3;
+      if (visibility == Graph.Visibility.INVISIBLE.ordinal())
+        continue;
+      if (leaf) {
+        result.add(_nodes[index]);
+      } else if (visibility == Graph.Visibility.VISIBLE.ordinal()) {
+        _collect(index, result);
+      } else {
+        _push(_child1[index]);
+        _push(_child2[index]);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns (at most) the {@code k} nodes nearest to {@code point}, sorted by the distance
+   * from their bounds to the point.
+   */
+  public List<Node> nearest(Vector point, int k) {
+    update();
+    List<Node> result = new ArrayList<Node>();
+    if (_root == -1 || k < 1)
+      return result;
+    float x = point.x(), y = point.y(), z = point.z();
+    _heapSize = 0;
+    _offerChild(_root, x, y, z);
+    while (_heapSize > 0 && result.size() < k) {
+      // leaves are offered with their tight distance, so the first leaf polled is the nearest one
+      int index = _poll();
+      if (_child1[index] == -1) {
+        result.add(_nodes[index]);
+      } else {
+        _offerChild(_child1[index], x, y, z);
+        _offerChild(_child2[index], x, y, z);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Same as {@code return cast(origin, direction, null)}.
+   *
+   * @see #cast(Vector, Vector, Predicate)
+   */
+  public Node cast(Vector origin, Vector direction) {
+    return cast(origin, direction, null);
+  }
+
+  /**
+   * Casts the ray defined by its world {@code origin} and {@code direction} and returns the
+   * nearest node accepted by the {@code filter} (which may be {@code null}) hit by the ray,
+   * or {@code null} if the ray misses all of them. Nodes are hit against their bounding
+   * volume and {@link Node#triangles()} (so that nodes having no bounding volume are
+   * never hit), and they are visited in the order the ray enters their bounds.
+   */
+  public Node cast(Vector origin, Vector direction, Predicate<Node> filter) {
+    update();
+    if (_root == -1)
+      return null;
+    float[] o = origin._vector;
+    float[] d = direction._vector;
+    _heapSize = 0;
+    _offerChild(_root, o, d);
+    while (_heapSize > 0) {
+      int item = _poll();
+      // hit leaves are re-offered (complemented) with their exact hit parameter, which is
+      // never less than their bounds entry one
+      if (item < 0)
+        return _nodes[~item];
+      if (_child1[item] == -1) {
+        Node node = _nodes[item];
+        if (filter == null || filter.test(node)) {
+          float t = node._cast(origin, direction);
+          if (t >= 0)
+            _offer(t, ~item);
+        }
+      } else {
+        _offerChild(_child1[item], o, d);
+        _offerChild(_child2[item], o, d);
+      }
+    }
+    return null;
+  }
+
+  // sync
+
+  /**
+   * Internal use. Records that the {@code node} (and hence its subtree) changed.
+   */
+  protected void _touch(Node node) {
+    if (node._indexTouch != _epoch) {
+      node._indexTouch = _epoch;
+      _dirty.add(node);
+    }
+  }
+
+  /**
+   * Refits the leaves of the {@code root} subtree, removing those of the detached nodes.
+   * Subtrees already refit in this update are skipped.
+   */
+  protected void _sync(Node root) {
+    _walk.clear();
+    _walk.add(root);
+    while (!_walk.isEmpty()) {
+      Node node = _walk.remove(_walk.size() - 1);
+      if (node._indexSync == _epoch)
+        continue;
+      node._indexSync = _epoch;
+      if (node.isAttached()) {
+        _syncLeaf(node);
+      } else if (node._leaf != -1) {
+        _removeLeaf(node._leaf);
+        _release(node._leaf);
+        node._leaf = -1;
+        _leaves--;
+      }
+      _walk.addAll(node.children());
+    }
+  }
+
+  /**
+   * Refits the {@code node} leaf, inserting it if the node isn't indexed yet and
+   * re-inserting it if its bounds are no longer contained within its fat box.
+   */
+  protected void _syncLeaf(Node node) {
+    float[] bounds = _bounds;
+    node._updateWorldCache();
+    if (node._volumeCenter != null) {
+      node._volumeBounds(bounds);
+    } else if (node._triangles != null) {
+      node._volumeBounds(node._trianglesCenter, node._trianglesExtents, null, false, bounds);
+    } else {
+      for (int i = 0; i < 3; i++) {
+        bounds[i] = bounds[3 + i] = node._worldPosition._vector[i];
+      }
+    }
+    int leaf = node._leaf;
+    if (leaf == -1) {
+      leaf = _allocate();
+      _nodes[leaf] = node;
+      node._leaf = leaf;
+      _leaves++;
+    } else {
+      int i = 6 * leaf;
+      System.arraycopy(bounds, 0, _tight, i, 6);
+      if (_fat[i] <= bounds[0] && _fat[i + 1] <= bounds[1] && _fat[i + 2] <= bounds[2]
+          && _fat[i + 3] >= bounds[3] && _fat[i + 4] >= bounds[4] && _fat[i + 5] >= bounds[5])
+        return;
+      _removeLeaf(leaf);
+    }
+    int i = 6 * leaf;
+    System.arraycopy(bounds, 0, _tight, i, 6);
+    for (int j = 0; j < 3; j++) {
+      _fat[i + j] = bounds[j] - margin;
+      _fat[i + 3 + j] = bounds[3 + j] + margin;
+    }
+    _insertLeaf(leaf);
+  }
+
+  // tree
+
+  /**
+   * Inserts the {@code leaf} next to the sibling minimizing the increase of the (fat)
+   * boxes perimeters and refits its ancestors.
+   */
+  protected void _insertLeaf(int leaf) {
+    if (_root == -1) {
+      _root = leaf;
+      _parent[leaf] = -1;
+      return;
+    }
+    int index = _root;
+    while (_child1[index] != -1) {
+      int child1 = _child1[index];
+      int child2 = _child2[index];
+      float perimeter = _perimeter(index, index);
+      float combined = _perimeter(index, leaf);
+      // cost of creating a new parent for this node and the leaf
+      float cost = 2 * combined;
+      // minimum cost of pushing the leaf further down the tree
+      float inheritance = 2 * (combined - perimeter);
+      float cost1 = _perimeter(child1, leaf) + inheritance - (_child1[child1] == -1 ? 0 : _perimeter(child1, child1));
+      float cost2 = _perimeter(child2, leaf) + inheritance - (_child1[child2] == -1 ? 0 : _perimeter(child2, child2));
+      if (cost < cost1 && cost < cost2)
+        break;
+      index = cost1 < cost2 ? child1 : child2;
+    }
+    int sibling = index;
+    int oldParent = _parent[sibling];
+    int parent = _allocate();
+    _parent[parent] = oldParent;
+    _union(sibling, leaf, parent);
+    _height[parent] = _height[sibling] + 1;
+    if (oldParent != -1) {
+      _replaceChild(oldParent, sibling, parent);
+    } else {
+      _root = parent;
+    }
+    _child1[parent] = sibling;
+    _child2[parent] = leaf;
+    _parent[sibling] = parent;
+    _parent[leaf] = parent;
+    _refit(parent);
+  }
+
+  /**
+   * Removes the {@code leaf} (which isn't released) from the tree and refits its ancestors.
+   */
+  protected void _removeLeaf(int leaf) {
+    if (leaf == _root) {
+      _root = -1;
+      return;
+    }
+    int parent = _parent[leaf];
+    int grandParent = _parent[parent];
+    int sibling = _child1[parent] == leaf ? _child2[parent] : _child1[parent];
+    _release(parent);
+    if (grandParent != -1) {
+      _replaceChild(grandParent, parent, sibling);
+      _parent[sibling] = grandParent;
+      _refit(grandParent);
+    } else {
+      _root = sibling;
+      _parent[sibling] = -1;
+    }
+  }
+
+  /**
+   * Rebalances and refits the boxes and heights of {@code index} and its ancestors.
+   */
+  protected void _refit(int index) {
+    while (index != -1) {
+      index = _balance(index);
+      int child1 = _child1[index];
+      int child2 = _child2[index];
+      _height[index] = 1 + Math.max(_height[child1], _height[child2]);
+      _union(child1, child2, index);
+      index = _parent[index];
+    }
+  }
+
+  /**
+   * Rotates the higher child of {@code index} up if the heights of its children differ by
+   * more than one. Returns the root of the rotated subtree.
+   */
+  protected int _balance(int index) {
+    if (_child1[index] == -1 || _height[index] < 2)
+      return index;
+    int child1 = _child1[index];
+    int child2 = _child2[index];
+    int balance = _height[child2] - _height[child1];
+    if (balance > 1)
+      return _rotate(index, child2, child1);
+    if (balance < -1)
+      return _rotate(index, child1, child2);
+    return index;
+  }
+
+  /**
+   * Makes the {@code up} child of {@code index} (whose other child is {@code other}) the
+   * subtree root, keeping the higher child of {@code up} and handing the lower one to
+   * {@code index}.
+   */
+  protected int _rotate(int index, int up, int other) {
+    int f = _child1[up];
+    int g = _child2[up];
+    int parent = _parent[index];
+    _child1[up] = index;
+    _parent[up] = parent;
+    _parent[index] = up;
+    if (parent != -1) {
+      _replaceChild(parent, index, up);
+    } else {
+      _root = up;
+    }
+    int kept = _height[f] > _height[g] ? f : g;
+    int handed = kept == f ? g : f;
+    _child2[up] = kept;
+    _replaceChild(index, up, handed);
+    _parent[handed] = index;
+    _union(other, handed, index);
+    _union(index, kept, up);
+    _height[index] = 1 + Math.max(_height[other], _height[handed]);
+    _height[up] = 1 + Math.max(_height[index], _height[kept]);
+    return up;
+  }
+
+  protected void _replaceChild(int parent, int child, int replacement) {
+    if (_child1[parent] == child) {
+      _child1[parent] = replacement;
+    } else {
+      _child2[parent] = replacement;
+    }
+  }
+
+  /**
+   * Sets the fat box of {@code target} as the union of the fat boxes of {@code a} and
+   * {@code b}.
+   */
+  protected void _union(int a, int b, int target) {
+    int i = 6 * a, j = 6 * b, k = 6 * target;
+    for (int c = 0; c < 3; c++) {
+      _fat[k + c] = Math.min(_fat[i + c], _fat[j + c]);
+      _fat[k + 3 + c] = Math.max(_fat[i + 3 + c], _fat[j + 3 + c]);
+    }
+  }
+
+  /**
+   * Returns the half perimeter of the union of the fat boxes of {@code a} and {@code b}.
+   * Perimeters, unlike areas, are meaningful for flat (e.g., 2D) and point leaves.
+   */
+  protected float _perimeter(int a, int b) {
+    int i = 6 * a, j = 6 * b;
+    float perimeter = 0;
+    for (int c = 0; c < 3; c++) {
+      perimeter += Math.max(_fat[i + 3 + c], _fat[j + 3 + c]) - Math.min(_fat[i + c], _fat[j + c]);
+    }
+    return perimeter;
+  }
+
+  protected int _allocate() {
+    if (_free == -1) {
+      _grow(2 * _nodes.length);
+    }
+    int index = _free;
+    _free = _child1[index];
+    _parent[index] = -1;
+    _child1[index] = -1;
+    _child2[index] = -1;
+    _height[index] = 0;
+    return index;
+  }
+
+  protected void _release(int index) {
+    _nodes[index] = null;
+    _height[index] = -1;
+    _child1[index] = _free;
+    _free = index;
+  }
+
+  /**
+   * Grows the tree arrays to {@code capacity}, linking the new tree nodes into the free list.
+   */
+  protected void _grow(int capacity) {
+    int size = _nodes == null ? 0 : _nodes.length;
+    _fat = _fat == null ? new float[6 * capacity] : Arrays.copyOf(_fat, 6 * capacity);
+    _tight = _tight == null ? new float[6 * capacity] : Arrays.copyOf(_tight, 6 * capacity);
+    _parent = _parent == null ? new int[capacity] : Arrays.copyOf(_parent, capacity);
+    _child1 = _child1 == null ? new int[capacity] : Arrays.copyOf(_child1, capacity);
+    _child2 = _child2 == null ? new int[capacity] : Arrays.copyOf(_child2, capacity);
+    _height = _height == null ? new int[capacity] : Arrays.copyOf(_height, capacity);
+    _nodes = _nodes == null ? new Node[capacity] : Arrays.copyOf(_nodes, capacity);
+    for (int index = size; index < capacity; index++) {
+      _child1[index] = index + 1 < capacity ? index + 1 : _free;
+      _height[index] = -1;
+    }
+    _free = size;
+  }
+
+  // queries
+
+  protected void _push(int index) {
+    if (index == -1)
+      return;
+    if (_top == _stack.length) {
+      _stack = Arrays.copyOf(_stack, 2 * _top);
+    }
+    _stack[_top++] = index;
+  }
+
+  /**
+   * Adds all the leaves of the {@code index} subtree to {@code result}.
+   */
+  protected void _collect(int index, List<Node> result) {
+    int base = _top;
+    _push(index);
+    while (_top > base) {
+      index = _stack[--_top];
+      if (_child1[index] == -1) {
+        result.add(_nodes[index]);
+      } else {
+        _push(_child1[index]);
+        _push(_child2[index]);
+      }
+    }
+  }
+
+  protected void _offerChild(int index, float x, float y, float z) {
+    _offer(_squaredDistance(_child1[index] == -1 ? _tight : _fat, index, x, y, z), index);
+  }
+
+  protected void _offerChild(int index, float[] origin, float[] direction) {
+    float t = _entry(_child1[index] == -1 ? _tight : _fat, index, origin, direction);
+    if (t >= 0)
+      _offer(t, index);
+  }
+
+  /**
+   * Returns the squared distance from {@code (x, y, z)} to the {@code index} box.
+   */
+  protected static float _squaredDistance(float[] box, int index, float x, float y, float z) {
+    int i = 6 * index;
+    float dx = Math.max(0, Math.max(box[i] - x, x - box[i + 3]));
+    float dy = Math.max(0, Math.max(box[i + 1] - y, y - box[i + 4]));
+    float dz = Math.max(0, Math.max(box[i + 2] - z, z - box[i + 5]));
+    return dx * dx + dy * dy + dz * dz;
+  }
+
+  /**
+   * Returns the parameter at which the ray (defined by its {@code origin} and
+   * {@code direction}) enters the {@code index} box, {@code 0} if the origin lies within
+   * the box, or {@code -1} if the ray misses it.
+   */
+  protected static float _entry(float[] box, int index, float[] origin, float[] direction) {
+    int i = 6 * index;
+    float near = 0, far = Float.POSITIVE_INFINITY;
+    for (int c = 0; c < 3; c++) {
+      float min = box[i + c], max = box[i + 3 + c];
+      if (direction[c] == 0) {
+        if (origin[c] < min || origin[c] > max)
+          return -1;
+        continue;
+      }
+      float inverse = 1 / direction[c];
+      float t1 = (min - origin[c]) * inverse;
+      float t2 = (max - origin[c]) * inverse;
+      near = Math.max(near, Math.min(t1, t2));
+      far = Math.min(far, Math.max(t1, t2));
+      if (near > far)
+        return -1;
+    }
+    return near;
+  }
+
+  protected void _offer(float key, int item) {
+    if (_heapSize == _heapKeys.length) {
+      _heapKeys = Arrays.copyOf(_heapKeys, 2 * _heapSize);
+      _heapItems = Arrays.copyOf(_heapItems, 2 * _heapSize);
+    }
+    int i = _heapSize++;
+    while (i > 0) {
+      int parent = (i - 1) >>> 1;
+      if (_heapKeys[parent] <= key)
+        break;
+      _heapKeys[i] = _heapKeys[parent];
+      _heapItems[i] = _heapItems[parent];
+      i = parent;
+    }
+    _heapKeys[i] = key;
+    _heapItems[i] = item;
+  }
+
+  /**
+   * Removes and returns the item of the heap having the smallest key. The key is left
+   * at {@code _heapKeys[_heapSize]}.
+   */
+  protected int _poll() {
+    int result = _heapItems[0];
+    float resultKey = _heapKeys[0];
+    float key = _heapKeys[--_heapSize];
+    int item = _heapItems[_heapSize];
+    int i = 0;
+    while (true) {
+      int child = 2 * i + 1;
+      if (child >= _heapSize)
+        break;
+      if (child + 1 < _heapSize && _heapKeys[child + 1] < _heapKeys[child])
+        child++;
+      if (key <= _heapKeys[child])
+        break;
+      _heapKeys[i] = _heapKeys[child];
+      _heapItems[i] = _heapItems[child];
+      i = child;
+    }
+    _heapKeys[i] = key;
+    _heapItems[i] = item;
+    _heapKeys[_heapSize] = resultKey;
+    return result;
+  }
+}
@@ -1043,8 +1043,34 @@ public class Quaternion {
    * @param allowFlip tells whether or not the interpolation allows axis flip
    */
   public static Quaternion slerp(Quaternion a, Quaternion b, float t, boolean allowFlip) {
+    return Quaternion.slerp(a, b, t, allowFlip, new Quaternion());
+  }
+
+  /**
+   * Same as {@link #slerp(Quaternion, Quaternion, float, boolean)}, but stores the result in
+   * {@code result} (which may be {@code a} or {@code b}) and returns it, without allocating
+   * any object.
+   *
+   * @param a         the first Quaternion
+   * @param b         the second Quaternion
+   * @param t         the t interpolation parameter
+   * @param allowFlip tells whether or not the interpolation allows axis flip
+   * @param result    the Quaternion where the interpolation is stored
+   */
+  public static Quaternion slerp(Quaternion a, Quaternion b, float t, boolean allowFlip, Quaternion result) {
+    _slerp(a._quaternion[0], a._quaternion[1], a._quaternion[2], a._quaternion[3],
+        b._quaternion[0], b._quaternion[1], b._quaternion[2], b._quaternion[3], t, allowFlip, result._quaternion);
+    return result;
+  }
+
+  /**
+   * Internal use. Slerp interpolation of the {@code (ax, ay, az, aw)} and {@code (bx, by, bz, bw)}
+   * quaternions stored in {@code result}.
+   */
+  protected static void _slerp(float ax, float ay, float az, float aw, float bx, float by, float bz, float bw,
+                               float t, boolean allowFlip, float[] result) {
     // Warning: this method should not normalize the Quaternion
-    float cosAngle = Quaternion.dot(a, b);
+    float cosAngle = ax * bx + ay * by + az * bz + aw * bw;
 
     float c1, c2;
     // Linear interpolation for close orientations
@@ -1063,8 +1089,10 @@ public class Quaternion {
     if (allowFlip && (cosAngle < 0.0))
       c1 = -c1;
 
-    return new Quaternion(c1 * a._quaternion[0] + c2 * b._quaternion[0], c1 * a._quaternion[1] + c2 * b._quaternion[1], c1 * a._quaternion[2] + c2 * b._quaternion[2],
-        c1 * a._quaternion[3] + c2 * b._quaternion[3], false);
+    result[0] = c1 * ax + c2 * bx;
+    result[1] = c1 * ay + c2 * by;
+    result[2] = c1 * az + c2 * bz;
+    result[3] = c1 * aw + c2 * bw;
   }
 
   /**
@@ -1084,9 +1112,31 @@ public class Quaternion {
    * @param t   the t interpolation parameter
    */
   public static Quaternion squad(Quaternion a, Quaternion tgA, Quaternion tgB, Quaternion b, float t) {
-    Quaternion ab = Quaternion.slerp(a, b, t);
-    Quaternion tg = Quaternion.slerp(tgA, tgB, t, false);
-    return Quaternion.slerp(ab, tg, 2.0f * t * (1.0f - t), false);
+    return Quaternion.squad(a, tgA, tgB, b, t, new Quaternion());
+  }
+
+  /**
+   * Same as {@link #squad(Quaternion, Quaternion, Quaternion, Quaternion, float)}, but stores
+   * the result in {@code result} (which may be any of the other quaternion params) and
+   * returns it, without allocating any object.
+   *
+   * @param a      the first Quaternion
+   * @param tgA    the first tangent Quaternion
+   * @param tgB    the second tangent Quaternion
+   * @param b      the second Quaternion
+   * @param t      the t interpolation parameter
+   * @param result the Quaternion where the interpolation is stored
+   */
+  public static Quaternion squad(Quaternion a, Quaternion tgA, Quaternion tgB, Quaternion b, float t, Quaternion result) {
+    float ax = a._quaternion[0], ay = a._quaternion[1], az = a._quaternion[2], aw = a._quaternion[3];
+    float bx = b._quaternion[0], by = b._quaternion[1], bz = b._quaternion[2], bw = b._quaternion[3];
+    float[] q = result._quaternion;
+    Quaternion._slerp(tgA._quaternion[0], tgA._quaternion[1], tgA._quaternion[2], tgA._quaternion[3],
+        tgB._quaternion[0], tgB._quaternion[1], tgB._quaternion[2], tgB._quaternion[3], t, false, q);
+    float tx = q[0], ty = q[1], tz = q[2], tw = q[3];
+    Quaternion._slerp(ax, ay, az, aw, bx, by, bz, bw, t, true, q);
+    Quaternion._slerp(q[0], q[1], q[2], q[3], tx, ty, tz, tw, 2.0f * t * (1.0f - t), false, q);
+    return result;
   }
 
   /**
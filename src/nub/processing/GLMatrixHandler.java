@@ -24,6 +24,9 @@ import processing.opengl.PGraphicsOpenGL;
 class GLMatrixHandler extends MatrixHandler {
   PGraphicsOpenGL _pggl;
   protected float[][] _matrixStackInv = new float[STACK_DEPTH][16];
+  // preallocated matrices used to apply transformations
+  protected PMatrix3D _transform = new PMatrix3D();
+  protected Matrix _modelview = new Matrix();
 
   public GLMatrixHandler(PGraphicsOpenGL pggl) {
     _pggl = pggl;
@@ -69,7 +72,7 @@ class GLMatrixHandler extends MatrixHandler {
   @Override
   protected void _bindMatrix(Matrix matrix) {
     if (_pggl.is3D())
-      _pggl.setMatrix(Scene.toPMatrix(matrix));// in P5 this caches projmodelview
+      _pggl.setMatrix(Scene.toPMatrix(matrix, _transform));// in P5 this caches projmodelview
     else {
       _pggl.modelview.set(Scene.toPMatrix(matrix));
       _pggl.projmodelview.set(Matrix.multiply(projection(), matrix).get(new float[16], false));
@@ -94,9 +97,7 @@ class GLMatrixHandler extends MatrixHandler {
   @Override
   public void applyTransformation(Node node) {
     if (_pggl instanceof PGraphics3D) {
-      translate(node.position()._vector[0], node.position()._vector[1], node.position()._vector[2]);
-      rotate(node.orientation().angle(), (node.orientation()).axis()._vector[0], (node.orientation()).axis()._vector[1], (node.orientation()).axis()._vector[2]);
-      scale(node.magnitude(), node.magnitude(), node.magnitude());
+      _pggl.applyMatrix(Scene.toPMatrix(node, _transform));
     } else {
       translate(node.position().x(), node.position().y());
       rotate(node.orientation().angle2D());
@@ -132,8 +133,8 @@ class GLMatrixHandler extends MatrixHandler {
 
   @Override
   public void pushMatrix() {
-    if (_matrixStackDepth == STACK_DEPTH) {
-      throw new RuntimeException(ERROR_PUSHMATRIX_OVERFLOW);
+    if (_matrixStackDepth == _matrixStack.length) {
+      _growMatrixStack();
     }
     _pggl.modelview.get(_matrixStack[_matrixStackDepth]);
     _pggl.modelviewInv.get(_matrixStackInv[_matrixStackDepth]);
@@ -141,6 +142,12 @@ class GLMatrixHandler extends MatrixHandler {
   }
 
 
+  @Override
+  protected void _growMatrixStack() {
+    super._growMatrixStack();
+    _matrixStackInv = _grow(_matrixStackInv);
+  }
+
   @Override
   public void popMatrix() {
     if (_matrixStackDepth == 0) {
@@ -152,9 +159,15 @@ class GLMatrixHandler extends MatrixHandler {
     _pggl.updateProjmodelview();
   }
 
+  @Override
+  public void loadMatrix(Matrix matrix) {
+    Matrix.multiply(view(), matrix, _modelview);
+    _bindMatrix(_modelview);
+  }
+
   @Override
   public void applyMatrix(Matrix matrix) {
-    _pggl.applyMatrix(Scene.toPMatrix(matrix));
+    _pggl.applyMatrix(Scene.toPMatrix(matrix, _transform));
   }
 
   @Override
@@ -24,7 +24,10 @@ import processing.data.JSONArray;
 import processing.data.JSONObject;
 import processing.opengl.*;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -115,6 +118,8 @@ public class Scene extends Graph {
 
   // Prettify bb display if required
   protected HashMap<Integer, Integer> _idToColor = new HashMap<>();
+  // partial picking buffer read back (see _readBackBuffer())
+  protected IntBuffer _bbPixels;
 
   // CONSTRUCTORS
 
@@ -990,6 +995,8 @@ public class Scene extends Graph {
    */
   protected void _imageBackBuffer(int background, int pixelX, int pixelY) {
     if (_backBuffer() != null) {
+      // the whole buffer is displayed, so it shouldn't be rendered partially
+      _bbQueried = true;
       pApplet.pushStyle();
       pApplet.imageMode(PApplet.CORNER);
       PImage img = _backBuffer().get();
@@ -1173,7 +1180,13 @@ public class Scene extends Graph {
     _backBuffer().beginDraw();
     // TODO seems style is not require since it should be absorbed by the shader
     //_backBuffer().pushStyle();
+    if (!_isBackBufferAreaFull()) {
+      // scissor the pass (including the background clear) to the area
+      _backBuffer().clip(_bbArea[0], _bbArea[1], _bbArea[2], _bbArea[3]);
+    }
     _backBuffer().background(0);
+    // ids above 2^24 are (partially) encoded in the alpha channel, which shouldn't be blended
+    _backBuffer().blendMode(PApplet.REPLACE);
   }
 
   @Override
@@ -1185,7 +1198,7 @@ public class Scene extends Graph {
           if (node.isPickingEnabled(Node.HUD)) {
             _emitBackBufferUniforms(node);
             _backBuffer().pushMatrix();
-            Vector location = screenLocation(node);
+            Vector location = _screenLocation(node);
             if (location != null) {
               _backBuffer().translate(location.x(), location.y());
               if (_imrHUD(node) != null) {
@@ -1203,8 +1216,51 @@ public class Scene extends Graph {
     }
     // TODO seems style is not require since it should be absorbed by the shader
     //_backBuffer().popStyle();
-    _backBuffer().loadPixels();
-    _backBuffer().endDraw();
+    PGraphics pg = _backBuffer();
+    if (_isBackBufferAreaFull()) {
+      pg.loadPixels();
+    } else {
+      pg.noClip();
+      if (pg.pixels == null || pg.pixels.length != pg.width * pg.height || pg.pixelDensity != 1) {
+        pg.loadPixels();
+      } else {
+        _readBackBuffer();
+      }
+    }
+    pg.endDraw();
+  }
+
+  /**
+   * Returns whether or not the picking buffer pass area covers the whole buffer.
+   */
+  protected boolean _isBackBufferAreaFull() {
+    return _bbArea[0] == 0 && _bbArea[1] == 0 && _bbArea[2] == width() && _bbArea[3] == height();
+  }
+
+  /**
+   * Used by {@link #_endBackBuffer()}. Reads back only the picking buffer pass area pixels
+   * into the {@link #_backBuffer()} {@code pixels}, converting them from the OpenGL RGBA
+   * (bottom-up) layout to the Processing ARGB (top-down) one.
+   */
+  protected void _readBackBuffer() {
+    PGraphicsOpenGL pg = (PGraphicsOpenGL) _backBuffer();
+    int x = _bbArea[0], y = _bbArea[1], width = _bbArea[2], height = _bbArea[3];
+    if (_bbPixels == null || _bbPixels.capacity() < width * height) {
+      _bbPixels = ByteBuffer.allocateDirect(4 * width * height).order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+    _bbPixels.rewind();
+    PGL pgl = pg.beginPGL();
+    pgl.readPixels(x, pg.height - y - height, width, height, PGL.RGBA, PGL.UNSIGNED_BYTE, _bbPixels);
+    pg.endPGL();
+    boolean bigEndian = ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN;
+    for (int row = 0; row < height; row++) {
+      int target = (y + height - 1 - row) * pg.width + x;
+      for (int column = 0; column < width; column++) {
+        int color = _bbPixels.get(row * width + column);
+        pg.pixels[target + column] = bigEndian ? (color >>> 8) | (color << 24) :
+            (color & 0xff00ff00) | ((color << 16) & 0xff0000) | ((color >>> 16) & 0xff);
+      }
+    }
   }
 
   @Override
@@ -1231,12 +1287,13 @@ public class Scene extends Graph {
     float r = Node.redID(id);
     float g = Node.greenID(id);
     float b = Node.blueID(id);
+    float a = Node.alphaID(id);
     _backBuffer().shader(_triangleShader);
     _backBuffer().shader(_lineShader, PApplet.LINES);
     _backBuffer().shader(_pointShader, PApplet.POINTS);
-    _triangleShader.set("id", new PVector(r, g, b));
-    _lineShader.set("id", new PVector(r, g, b));
-    _pointShader.set("id", new PVector(r, g, b));
+    _triangleShader.set("id", r, g, b, a);
+    _lineShader.set("id", r, g, b, a);
+    _pointShader.set("id", r, g, b, a);
   }
 
   @Override
@@ -1249,7 +1306,7 @@ public class Scene extends Graph {
         Node node = iterator.next();
         if (_rendered(node) && node.isHintEnabled(Node.HUD)) {
           context().pushMatrix();
-          Vector location = screenLocation(node);
+          Vector location = _screenLocation(node);
           if (location != null) {
             context().translate(location.x(), location.y());
             if (_imrHUD(node) != null) {
@@ -1563,12 +1620,42 @@ public class Scene extends Graph {
   }
 
   /**
-   * Converts a {@link Matrix} to a PMatrix3D.
+   * Same as {@code return toPMatrix(matrix, new PMatrix3D())}.
+   *
+   * @see #toPMatrix(Matrix, PMatrix3D)
    */
   public static PMatrix3D toPMatrix(Matrix matrix) {
-    float[] a = matrix.get(new float[16], false);
-    return new PMatrix3D(a[0], a[1], a[2], a[3], a[4], a[5], a[6], a[7], a[8], a[9], a[10], a[11], a[12], a[13], a[14],
-        a[15]);
+    return toPMatrix(matrix, new PMatrix3D());
+  }
+
+  /**
+   * Converts a {@link Matrix} to the {@code pMatrix3D} PMatrix3D, which is returned.
+   */
+  public static PMatrix3D toPMatrix(Matrix matrix, PMatrix3D pMatrix3D) {
+    float[] m = matrix._matrix;
+    pMatrix3D.set(m[0], m[4], m[8], m[12], m[1], m[5], m[9], m[13], m[2], m[6], m[10], m[14], m[3], m[7], m[11], m[15]);
+    return pMatrix3D;
+  }
+
+  /**
+   * Converts the {@code node} local transformation (see {@link Node#matrix()}) to the
+   * {@code pMatrix3D} PMatrix3D, which is returned. The matrix is built straight from the
+   * node position, orientation and magnitude, without any trigonometric call nor
+   * allocation.
+   */
+  public static PMatrix3D toPMatrix(Node node, PMatrix3D pMatrix3D) {
+    float[] q = node.orientation()._quaternion;
+    float[] p = node.position()._vector;
+    float s = node.magnitude();
+    float xx = 2 * q[0] * q[0], yy = 2 * q[1] * q[1], zz = 2 * q[2] * q[2];
+    float xy = 2 * q[0] * q[1], xz = 2 * q[0] * q[2], yz = 2 * q[1] * q[2];
+    float xw = 2 * q[0] * q[3], yw = 2 * q[1] * q[3], zw = 2 * q[2] * q[3];
+    pMatrix3D.set(
+        s * (1 - yy - zz), s * (xy - zw), s * (xz + yw), p[0],
+        s * (xy + zw), s * (1 - xx - zz), s * (yz - xw), p[1],
+        s * (xz - yw), s * (yz + xw), s * (1 - xx - yy), p[2],
+        0, 0, 0, 1);
+    return pMatrix3D;
   }
 
   /**
@@ -1597,36 +1684,36 @@ public class Scene extends Graph {
 
   protected void _drawSpline(Node interpolator) {
     if (interpolator.hint() != 0) {
-      List<Node> path = _path(interpolator);
-      if (_splineWeight(interpolator) > 0 && path.size() > 1) {
+      int size = _path(interpolator);
+      if (_splineWeight(interpolator) > 0 && size > 1) {
         context().pushStyle();
         context().noFill();
         context().colorMode(PApplet.RGB, 255);
         context().strokeWeight(_splineWeight(interpolator));
         context().stroke(_splineStroke(interpolator));
         context().beginShape();
-        for (Node node : path) {
-          Vector position = node.worldPosition();
-          vertex(position.x(), position.y(), position.z());
+        int count = _spline(interpolator);
+        float[] vertices = _splineVertices(interpolator);
+        for (int i = 0; i < count; i++) {
+          vertex(vertices[3 * i], vertices[3 * i + 1], vertices[3 * i + 2]);
         }
         context().endShape();
         context().popStyle();
       }
       if (_steps(interpolator) > 0) {
         context().pushStyle();
-        int count = 0;
         float goal = 0.0f;
-        for (Node node : path) {
+        for (int count = 0; count < size; count++) {
           if (count >= goal) {
             goal += Node.maxSteps / ((float) _steps(interpolator) + 1);
             if (count % Node.maxSteps != 0) {
+              Node node = _pathNode(interpolator, count);
               _matrixHandler.pushMatrix();
               _matrixHandler.applyTransformation(node);
               _displayAnimationHint(node);
               _matrixHandler.popMatrix();
             }
           }
-          count++;
         }
         context().popStyle();
       }
@@ -2753,9 +2840,9 @@ public class Scene extends Graph {
     context().pushStyle();
     if (isTagged(node))
       context().strokeWeight(2 + context().strokeWeight);
-    Vector center = screenLocation(node);
-    if (center != null)
-      drawSquaredBullsEye(center.x(), center.y(), node.bullsEyeSize() < 1 ? 200 * node.bullsEyeSize() * node.magnitude() * pixelToSceneRatio(node.worldPosition()) : node.bullsEyeSize());
+    int offset = _projection(node);
+    if (offset >= 0)
+      drawSquaredBullsEye(_projections[offset], _projections[offset + 1], node.bullsEyeSize() < 1 ? 200 * node.bullsEyeSize() * node.magnitude() * _projections[offset + 3] : node.bullsEyeSize());
     context().popStyle();
   }
 
@@ -2827,9 +2914,9 @@ public class Scene extends Graph {
     context().pushStyle();
     if (isTagged(node))
       context().strokeWeight(2 + context().strokeWeight);
-    Vector center = screenLocation(node);
-    if (center != null)
-      drawCircledBullsEye(center.x(), center.y(), node.bullsEyeSize() < 1 ? 200 * node.bullsEyeSize() * node.magnitude() * pixelToSceneRatio(node.worldPosition()) : node.bullsEyeSize());
+    int offset = _projection(node);
+    if (offset >= 0)
+      drawCircledBullsEye(_projections[offset], _projections[offset + 1], node.bullsEyeSize() < 1 ? 200 * node.bullsEyeSize() * node.magnitude() * _projections[offset + 3] : node.bullsEyeSize());
     context().popStyle();
   }
 
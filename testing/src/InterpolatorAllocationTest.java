@@ -0,0 +1,53 @@
+import com.sun.management.ThreadMXBean;
+import nub.core.Node;
+import nub.primitives.Quaternion;
+import nub.primitives.Vector;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/**
+ * Checks that Node.interpolate(float) allocates no memory in steady state when
+ * the keyframes share the interpolated node reference, and that the node position and
+ * orientation are updated in place. Exits with a non-zero status on failure.
+ */
+public class InterpolatorAllocationTest {
+  public static void main(String[] args) {
+    ThreadMXBean bean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    if (!bean.isThreadAllocatedMemorySupported()) {
+      System.out.println("Thread allocated memory isn't supported by this JVM. Nothing done!");
+      return;
+    }
+    bean.setThreadAllocatedMemoryEnabled(true);
+    Random random = new Random(3);
+    Node node = new Node(false);
+    for (int i = 0; i < 20; i++) {
+      Node keyFrame = new Node(new Vector(random.nextFloat(), random.nextFloat(), random.nextFloat()),
+          new Quaternion(new Vector(1, random.nextFloat(), 0), 6 * random.nextFloat()), 1 + random.nextFloat(), false);
+      node.addKeyFrame(keyFrame, i == 0 ? 0 : 100);
+    }
+    float lastTime = 19 * 100;
+    // warm up, so that the tangents are computed and the loop gets compiled
+    for (int i = 0; i < 200000; i++) {
+      node.interpolate((i * 3.7f) % lastTime);
+    }
+    Vector position = node.position();
+    Quaternion orientation = node.orientation();
+    int calls = 1000000;
+    long thread = Thread.currentThread().getId();
+    long before = bean.getThreadAllocatedBytes(thread);
+    for (int i = 0; i < calls; i++) {
+      node.interpolate((i * 3.7f) % lastTime);
+    }
+    long bytes = bean.getThreadAllocatedBytes(thread) - before;
+    System.out.println("interpolate: " + (double) bytes / calls + " bytes per call");
+    if (bytes != 0) {
+      System.out.println("Error: interpolate allocated " + bytes + " bytes in " + calls + " calls");
+      System.exit(1);
+    }
+    if (node.position() != position || node.orientation() != orientation) {
+      System.out.println("Error: interpolate replaced the node position or orientation");
+      System.exit(1);
+    }
+  }
+}
@@ -0,0 +1,120 @@
+import nub.core.Node;
+import nub.primitives.Vector;
+import nub.processing.Scene;
+import processing.core.PApplet;
+
+/**
+ * Measures the bullseye (front buffer) picking cost of 10k nodes against 32 simultaneous
+ * rays, timing both strategies on the same work (no drawing is involved): the binned rays
+ * tracked with Graph._trackFrontBuffer(Node) against the naive nodes x rays loop using
+ * Scene.tracks(Node, int, int). Both strategies tag each ray with the first node (in
+ * traversal order) tracking it, which is checked every frame.
+ */
+public class RayBinningBenchmark extends PApplet {
+  BenchmarkScene scene;
+  Node[] nodes;
+  int n = 10000;
+  int rays = 32;
+  int[] pixelX = new int[rays], pixelY = new int[rays];
+  Node[] naive = new Node[rays];
+  long binnedTime, naiveTime;
+  int mismatches;
+
+  public void settings() {
+    size(800, 800, P3D);
+  }
+
+  public void setup() {
+    scene = new BenchmarkScene(this);
+    scene.picking = true;
+    nodes = new Node[n];
+    for (int i = 0; i < n; i++) {
+      nodes[i] = new Node();
+      nodes[i].setPosition(Vector.multiply(Vector.random(), random(scene.radius())));
+      nodes[i].enableHint(Node.BULLSEYE);
+      nodes[i].setBullsEyeSize(12);
+    }
+  }
+
+  public void draw() {
+    background(0);
+    for (int i = 0; i < rays; i++) {
+      pixelX[i] = (int) random(width);
+      pixelY[i] = (int) random(height);
+    }
+    scene.project();
+    long start = System.nanoTime();
+    scene.binned();
+    binnedTime += System.nanoTime() - start;
+    start = System.nanoTime();
+    scene.naive();
+    naiveTime += System.nanoTime() - start;
+    for (int i = 0; i < rays; i++) {
+      if (scene.node("ray" + i) != naive[i]) {
+        mismatches++;
+      }
+    }
+    if (frameCount % 60 == 0) {
+      println("binned tracking: " + binnedTime / 60e6f + " ms, naive tracking: " + naiveTime / 60e6f + " ms, mismatches: " + mismatches);
+      binnedTime = 0;
+      naiveTime = 0;
+    }
+  }
+
+  /**
+   * Exposes the scene ray binning to the benchmark.
+   */
+  class BenchmarkScene extends Scene {
+    BenchmarkScene(PApplet pApplet) {
+      super(pApplet);
+    }
+
+    // Warms up the per-frame projection cache, so that neither strategy pays for it. The
+    // cache is indexed by the traversal, which should then be up to date (otherwise all
+    // the nodes would share the detached nodes slot and nothing would be cached).
+    void project() {
+      _updateTraversal();
+      for (Node node : nodes) {
+        _projection(node);
+      }
+    }
+
+    // Tags the rays tracking the nodes as the render traversal does.
+    void binned() {
+      for (int i = 0; i < rays; i++) {
+        removeTag("ray" + i);
+        tag("ray" + i, pixelX[i], pixelY[i]);
+      }
+      // make the rays just enqueued pending, as draw() does
+      _orays.clear();
+      _orays.addAll(_irays);
+      _irays.clear();
+      _raysBinned = false;
+      for (Node node : nodes) {
+        _trackFrontBuffer(node);
+      }
+      _orays.clear();
+    }
+
+    // Finds the first node tracking each ray with the naive nodes x rays loop.
+    void naive() {
+      java.util.Arrays.fill(naive, null);
+      int pending = rays;
+      for (Node node : nodes) {
+        for (int i = 0; i < rays; i++) {
+          if (naive[i] == null && tracks(node, pixelX[i], pixelY[i])) {
+            naive[i] = node;
+            pending--;
+          }
+        }
+        if (pending == 0) {
+          break;
+        }
+      }
+    }
+  }
+
+  public static void main(String[] args) {
+    PApplet.main(new String[]{"RayBinningBenchmark"});
+  }
+}
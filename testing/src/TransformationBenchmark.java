@@ -0,0 +1,64 @@
+import nub.core.Node;
+import nub.primitives.Quaternion;
+import nub.primitives.Vector;
+import nub.processing.Scene;
+import processing.core.PApplet;
+import processing.core.PMatrix3D;
+import processing.opengl.PGraphicsOpenGL;
+
+/**
+ * Compares the per node cost of applying the node local transformation through
+ * translate / rotate(angle, axis) / scale against the trig-free single matrix path
+ * used by the scene (see Scene.toPMatrix(Node, PMatrix3D)).
+ */
+public class TransformationBenchmark extends PApplet {
+  Scene scene;
+  Node[] nodes;
+  int n = 10000;
+  PMatrix3D matrix = new PMatrix3D();
+  long angleAxisTime, matrixTime;
+
+  public void settings() {
+    size(800, 800, P3D);
+  }
+
+  public void setup() {
+    scene = new Scene(this);
+    nodes = new Node[n];
+    for (int i = 0; i < n; i++) {
+      nodes[i] = new Node(Vector.random(), Quaternion.random(), random(0.5f, 2));
+    }
+  }
+
+  public void draw() {
+    background(0);
+    PGraphicsOpenGL pg = (PGraphicsOpenGL) scene.context();
+    long start = System.nanoTime();
+    for (Node node : nodes) {
+      pg.pushMatrix();
+      pg.translate(node.position().x(), node.position().y(), node.position().z());
+      Vector axis = node.orientation().axis();
+      pg.rotate(node.orientation().angle(), axis.x(), axis.y(), axis.z());
+      pg.scale(node.magnitude());
+      pg.popMatrix();
+    }
+    angleAxisTime += System.nanoTime() - start;
+    start = System.nanoTime();
+    for (Node node : nodes) {
+      pg.pushMatrix();
+      pg.applyMatrix(Scene.toPMatrix(node, matrix));
+      pg.popMatrix();
+    }
+    matrixTime += System.nanoTime() - start;
+    if (frameCount % 60 == 0) {
+      float norm = 60f * n;
+      println("angle-axis: " + angleAxisTime / norm + " ns/node, matrix: " + matrixTime / norm + " ns/node");
+      angleAxisTime = 0;
+      matrixTime = 0;
+    }
+  }
+
+  public static void main(String[] args) {
+    PApplet.main(new String[]{"TransformationBenchmark"});
+  }
+}